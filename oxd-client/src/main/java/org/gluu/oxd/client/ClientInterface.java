@@ -109,6 +109,12 @@ public interface ClientInterface {
     @Consumes(MediaType.APPLICATION_JSON)
     RsCheckAccessResponse umaRsCheckAccess(@HeaderParam("Authorization") String authorization, RsCheckAccessParams params);
 
+    @POST
+    @Path("/uma-rs-check-access-batch")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    RsCheckAccessBatchResponse umaRsCheckAccessBatch(@HeaderParam("Authorization") String authorization, RsCheckAccessBatchParams params);
+
     @POST
     @Path("/uma-rp-get-rpt")
     @Produces(MediaType.APPLICATION_JSON)
@@ -35,6 +35,7 @@ public enum CommandType {
     RS_PROTECT("uma_rs_protect"),
     RS_MODIFY("uma_rs_modify"),
     RS_CHECK_ACCESS("uma_rs_check_access"),
+    RS_CHECK_ACCESS_BATCH("uma_rs_check_access_batch"),
     INTROSPECT_RPT("introspect_rpt"),
     RP_GET_RPT("uma_rp_get_rpt"),
     RP_GET_CLAIMS_GATHERING_URL("uma_rp_get_claims_gathering_url"),
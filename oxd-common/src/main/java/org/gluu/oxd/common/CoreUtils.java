@@ -5,7 +5,6 @@ package org.gluu.oxd.common;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.client.HttpClient;
-import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
@@ -180,15 +179,9 @@ public class CoreUtils {
      * @throws Exception
      */
     public static HttpClient createHttpClientWithKeyStore(File pathToKeyStore, String password) throws Exception {
-        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
-        try (FileInputStream instream = new FileInputStream(pathToKeyStore)) {
-            keyStore.load(instream, password.toCharArray());
-        }
-
         HttpClient httpClient = new DefaultHttpClient();
 
-        SSLSocketFactory socketFactory = new SSLSocketFactory(keyStore);
-        socketFactory.setHostnameVerifier(SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+        SSLSocketFactory socketFactory = createSocketFactoryWithKeyStore(pathToKeyStore, password);
 
         httpClient.getConnectionManager().getSchemeRegistry().register(new Scheme("https", socketFactory, 443));
         httpClient.getConnectionManager().getSchemeRegistry().register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
@@ -197,6 +190,27 @@ public class CoreUtils {
     }
 
     public static HttpClient createHttpClientTrustAll() throws NoSuchAlgorithmException, KeyManagementException {
+        return new DefaultHttpClient(createPoolingConnectionManager(createTrustAllSocketFactory()));
+    }
+
+    /**
+     * @param pathToKeyStore path to key store, e.g. D:/Development/gluu_conf/etc/certs/DA855F9895A1CA3B9E7D4BF5-java.jks
+     * @param password       key store password
+     * @return ssl socket factory which trusts certificates from given key store
+     * @throws Exception
+     */
+    public static SSLSocketFactory createSocketFactoryWithKeyStore(File pathToKeyStore, String password) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (FileInputStream instream = new FileInputStream(pathToKeyStore)) {
+            keyStore.load(instream, password.toCharArray());
+        }
+
+        SSLSocketFactory socketFactory = new SSLSocketFactory(keyStore);
+        socketFactory.setHostnameVerifier(SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+        return socketFactory;
+    }
+
+    public static SSLSocketFactory createTrustAllSocketFactory() throws NoSuchAlgorithmException, KeyManagementException {
 //        System.setProperty("javax.net.debug", "SSL,handshake,trustmanager");
 
 //        SSLSocketFactory sf = new SSLSocketFactory(new TrustStrategy() {
@@ -220,12 +234,29 @@ public class CoreUtils {
 
         SSLSocketFactory sf = new SSLSocketFactory(sslContext);
         sf.setHostnameVerifier(SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+        return sf;
+    }
 
+    public static PoolingClientConnectionManager createPoolingConnectionManager(SSLSocketFactory sslSocketFactory) {
         SchemeRegistry registry = new SchemeRegistry();
         registry.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
-        registry.register(new Scheme("https", 443, sf));
-        ClientConnectionManager ccm = new PoolingClientConnectionManager(registry);
-        return new DefaultHttpClient(ccm);
+        registry.register(new Scheme("https", 443, sslSocketFactory));
+        return new PoolingClientConnectionManager(registry);
+    }
+
+    /**
+     * Creates thread-safe pooling connection manager which is meant to be shared by all outbound requests.
+     *
+     * @param sslSocketFactory ssl socket factory used for https scheme
+     * @param maxTotal         max total number of connections in pool
+     * @param maxPerRoute      max number of connections per route (per OP host)
+     * @return pooling connection manager
+     */
+    public static PoolingClientConnectionManager createPoolingConnectionManager(SSLSocketFactory sslSocketFactory, int maxTotal, int maxPerRoute) {
+        PoolingClientConnectionManager connectionManager = createPoolingConnectionManager(sslSocketFactory);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        return connectionManager;
     }
 
     public static String secureRandomString() {
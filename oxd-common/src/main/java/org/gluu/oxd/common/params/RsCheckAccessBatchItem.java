@@ -0,0 +1,51 @@
+package org.gluu.oxd.common.params;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Path and http method pair of uma_rs_check_access_batch command.
+ */
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RsCheckAccessBatchItem {
+
+    @JsonProperty(value = "path")
+    private String path;
+    @JsonProperty(value = "http_method")
+    private String http_method;
+
+    public RsCheckAccessBatchItem() {
+    }
+
+    public RsCheckAccessBatchItem(String path, String httpMethod) {
+        this.path = path;
+        this.http_method = httpMethod;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getHttpMethod() {
+        return http_method;
+    }
+
+    public void setHttpMethod(String httpMethod) {
+        this.http_method = httpMethod;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("RsCheckAccessBatchItem");
+        sb.append("{path='").append(path).append('\'');
+        sb.append(", http_method='").append(http_method).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package org.gluu.oxd.common.params;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks access to several resources (path and http method pairs) with one RPT.
+ */
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RsCheckAccessBatchParams implements HasAccessTokenParams {
+
+    @JsonProperty(value = "oxd_id")
+    private String oxd_id;
+    @JsonProperty(value = "rpt")
+    private String rpt;
+    @JsonProperty(value = "resources")
+    private List<RsCheckAccessBatchItem> resources = new ArrayList<>();
+    @JsonProperty(value = "token")
+    private String token;
+
+    public RsCheckAccessBatchParams() {
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getOxdId() {
+        return oxd_id;
+    }
+
+    public void setOxdId(String oxdId) {
+        this.oxd_id = oxdId;
+    }
+
+    public String getRpt() {
+        return rpt;
+    }
+
+    public void setRpt(String rpt) {
+        this.rpt = rpt;
+    }
+
+    public List<RsCheckAccessBatchItem> getResources() {
+        return resources;
+    }
+
+    public void setResources(List<RsCheckAccessBatchItem> resources) {
+        this.resources = resources;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("RsCheckAccessBatchParams");
+        sb.append("{oxd_id='").append(oxd_id).append('\'');
+        sb.append(", rpt='").append(rpt).append('\'');
+        sb.append(", resources=").append(resources);
+        sb.append(", token='").append(token).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package org.gluu.oxd.common.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of uma_rs_check_access_batch command. Access is "granted" only if access is granted to all requested
+ * resources. One ticket is registered for all denied resources, it is returned on top level and in each denied result.
+ */
+
+public class RsCheckAccessBatchResponse implements IOpResponse {
+
+    @JsonProperty(value = "access")
+    private String access;
+    @JsonProperty(value = "www-authenticate_header")
+    private String wwwAuthenticateHeader;
+    @JsonProperty(value = "ticket")
+    private String ticket;
+    @JsonProperty(value = "results")
+    private List<RsCheckAccessResponse> results = new ArrayList<>();
+
+    public RsCheckAccessBatchResponse() {
+    }
+
+    public String getAccess() {
+        return access;
+    }
+
+    public void setAccess(String access) {
+        this.access = access;
+    }
+
+    public String getWwwAuthenticateHeader() {
+        return wwwAuthenticateHeader;
+    }
+
+    public void setWwwAuthenticateHeader(String wwwAuthenticateHeader) {
+        this.wwwAuthenticateHeader = wwwAuthenticateHeader;
+    }
+
+    public String getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    public List<RsCheckAccessResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<RsCheckAccessResponse> results) {
+        this.results = results;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("RsCheckAccessBatchResponse");
+        sb.append("{access='").append(access).append('\'');
+        sb.append(", wwwAuthenticateHeader='").append(wwwAuthenticateHeader).append('\'');
+        sb.append(", ticket='").append(ticket).append('\'');
+        sb.append(", results=").append(results);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -3,6 +3,9 @@ package org.gluu.oxd.common.response;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * @author Yuriy Zabrovarnyy
  * @version 0.9, 31/05/2016
@@ -12,6 +15,12 @@ public class RsProtectResponse implements IOpResponse {
 
     @JsonProperty(value = "oxd_id")
     private String oxdId;
+    /**
+     * Resources which failed to be protected (path -> error) or failed to be removed on overwrite (resource id -> error).
+     * Empty if all resources are protected successfully.
+     */
+    @JsonProperty(value = "errors")
+    private Map<String, String> errors = new HashMap<>();
 
     public RsProtectResponse() {
     }
@@ -27,4 +36,12 @@ public class RsProtectResponse implements IOpResponse {
     public void setOxdId(String oxdId) {
         this.oxdId = oxdId;
     }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, String> errors) {
+        this.errors = errors;
+    }
 }
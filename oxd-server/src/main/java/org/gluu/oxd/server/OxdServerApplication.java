@@ -1,5 +1,6 @@
 package org.gluu.oxd.server;
 
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.health.HealthCheck;
 import io.dropwizard.Application;
 import io.dropwizard.configuration.EnvironmentVariableSubstitutor;
@@ -7,6 +8,8 @@ import io.dropwizard.configuration.SubstitutingSourceProvider;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import org.glassfish.jersey.server.filter.RolesAllowedDynamicFeature;
+import org.gluu.oxd.server.service.IntrospectionService;
+import org.gluu.oxd.server.service.RpService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,7 +42,13 @@ public class OxdServerApplication extends Application<OxdServerConfiguration> {
                 return Result.healthy();
             }
         });
+        registerMetrics(environment.metrics());
         environment.jersey().register(RolesAllowedDynamicFeature.class);
         environment.jersey().register(RestResource.class);
     }
+
+    private static void registerMetrics(MetricRegistry registry) {
+        ServerLauncher.getInjector().getInstance(IntrospectionService.class).registerMetrics(registry);
+        ServerLauncher.getInjector().getInstance(RpService.class).registerMetrics(registry);
+    }
 }
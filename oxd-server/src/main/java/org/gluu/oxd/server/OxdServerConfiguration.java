@@ -65,6 +65,92 @@ public class OxdServerConfiguration extends Configuration {
     private int tracerPort = 5775;
     @JsonProperty(value = "enable_tracing")
     private Boolean enableTracing = false;
+    @JsonProperty(value = "http_client_max_total_connections")
+    private int httpClientMaxTotalConnections = 200;
+    @JsonProperty(value = "http_client_max_connections_per_route")
+    private int httpClientMaxConnectionsPerRoute = 50;
+    @JsonProperty(value = "http_client_keep_alive_in_seconds")
+    private int httpClientKeepAliveInSeconds = 30;
+    @JsonProperty(value = "http_client_idle_connection_timeout_in_seconds")
+    private int httpClientIdleConnectionTimeoutInSeconds = 60;
+    @JsonProperty(value = "trust_store_check_interval_in_seconds")
+    private int trustStoreCheckIntervalInSeconds = 60;
+    @JsonProperty(value = "discovery_cache_max_size")
+    private int discoveryCacheMaxSize = 1000;
+    @JsonProperty(value = "discovery_cache_default_ttl_in_minutes")
+    private int discoveryCacheDefaultTtlInMinutes = 60;
+    @JsonProperty(value = "discovery_cache_min_ttl_in_seconds")
+    private int discoveryCacheMinTtlInSeconds = 60;
+    @JsonProperty(value = "discovery_cache_max_ttl_in_minutes")
+    private int discoveryCacheMaxTtlInMinutes = 1440;
+    @JsonProperty(value = "public_op_key_refetch_min_interval_in_seconds")
+    private int publicOpKeyRefetchMinIntervalInSeconds = 30;
+    @JsonProperty(value = "public_op_key_negative_cache_in_seconds")
+    private int publicOpKeyNegativeCacheInSeconds = 60;
+    @JsonProperty(value = "validate_jwt_access_token_locally")
+    private Boolean validateJwtAccessTokenLocally = false;
+    @JsonProperty(value = "validate_jwt_rpt_locally")
+    private Boolean validateJwtRptLocally = false;
+    @JsonProperty(value = "introspection_cache_max_size")
+    private int introspectionCacheMaxSize = 10000;
+    @JsonProperty(value = "introspection_cache_max_ttl_in_seconds")
+    private int introspectionCacheMaxTtlInSeconds = 30;
+    @JsonProperty(value = "introspection_cache_negative_ttl_in_seconds")
+    private int introspectionCacheNegativeTtlInSeconds = 5;
+    @JsonProperty(value = "introspection_cache_use_redis")
+    private Boolean introspectionCacheUseRedis = false;
+    @JsonProperty(value = "permission_ticket_cache_ttl_in_seconds")
+    private int permissionTicketCacheTtlInSeconds = 0;
+    @JsonProperty(value = "permission_ticket_cache_max_size")
+    private int permissionTicketCacheMaxSize = 10000;
+    @JsonProperty(value = "op_request_executor_threads")
+    private int opRequestExecutorThreads = 10;
+    @JsonProperty(value = "op_request_max_concurrency_per_op")
+    private int opRequestMaxConcurrencyPerOp = 4;
+    @JsonProperty(value = "token_refresh_margin_in_seconds")
+    private int tokenRefreshMarginInSeconds = 60;
+    @JsonProperty(value = "token_refresh_check_interval_in_seconds")
+    private int tokenRefreshCheckIntervalInSeconds = 30;
+    @JsonProperty(value = "token_refresh_jitter_in_seconds")
+    private int tokenRefreshJitterInSeconds = 15;
+    @JsonProperty(value = "token_refresh_idle_rp_timeout_in_seconds")
+    private int tokenRefreshIdleRpTimeoutInSeconds = 3600;
+    @JsonProperty(value = "client_token_cache_enabled")
+    private Boolean clientTokenCacheEnabled = false;
+    @JsonProperty(value = "client_token_cache_max_size")
+    private int clientTokenCacheMaxSize = 1000;
+    @JsonProperty(value = "client_token_cache_reuse_fraction")
+    private Double clientTokenCacheReuseFraction = 0.5;
+    @JsonProperty(value = "client_assertion_cache_enabled")
+    private Boolean clientAssertionCacheEnabled = false;
+    @JsonProperty(value = "client_assertion_cache_max_size")
+    private int clientAssertionCacheMaxSize = 1000;
+    @JsonProperty(value = "client_assertion_expiration_margin_in_seconds")
+    private int clientAssertionExpirationMarginInSeconds = 30;
+    @JsonProperty(value = "rp_cache_max_size")
+    private int rpCacheMaxSize = 10000;
+    @JsonProperty(value = "rp_cache_pinned_oxd_ids")
+    private List<String> rpCachePinnedOxdIds = Lists.newArrayList();
+    @JsonProperty(value = "rp_cache_refresh_threads")
+    private int rpCacheRefreshThreads = 2;
+    @JsonProperty(value = "login_tokens_storage")
+    private String loginTokensStorage = "rp";
+    @JsonProperty(value = "rp_write_behind_enabled")
+    private Boolean rpWriteBehindEnabled = false;
+    @JsonProperty(value = "rp_write_behind_delay_in_millis")
+    private int rpWriteBehindDelayInMillis = 200;
+    @JsonProperty(value = "rp_write_behind_batch_size")
+    private int rpWriteBehindBatchSize = 100;
+    @JsonProperty(value = "rp_write_behind_max_size")
+    private int rpWriteBehindMaxSize = 10000;
+    @JsonProperty(value = "rp_write_behind_max_retry_delay_in_millis")
+    private int rpWriteBehindMaxRetryDelayInMillis = 60000;
+    @JsonProperty(value = "http_client_connect_timeout_in_millis")
+    private int httpClientConnectTimeoutInMillis = 10000;
+    @JsonProperty(value = "http_client_socket_timeout_in_millis")
+    private int httpClientSocketTimeoutInMillis = 30000;
+    @JsonProperty(value = "http_client_connection_request_timeout_in_millis")
+    private int httpClientConnectionRequestTimeoutInMillis = 2000;
 
     public Boolean getEnableTracing() {
         return enableTracing;
@@ -282,6 +368,350 @@ public class OxdServerConfiguration extends Configuration {
         this.dbCleanupIntervalInHours = dbCleanupIntervalInHours;
     }
 
+    public int getHttpClientMaxTotalConnections() {
+        return httpClientMaxTotalConnections;
+    }
+
+    public void setHttpClientMaxTotalConnections(int httpClientMaxTotalConnections) {
+        this.httpClientMaxTotalConnections = httpClientMaxTotalConnections;
+    }
+
+    public int getHttpClientMaxConnectionsPerRoute() {
+        return httpClientMaxConnectionsPerRoute;
+    }
+
+    public void setHttpClientMaxConnectionsPerRoute(int httpClientMaxConnectionsPerRoute) {
+        this.httpClientMaxConnectionsPerRoute = httpClientMaxConnectionsPerRoute;
+    }
+
+    public int getHttpClientKeepAliveInSeconds() {
+        return httpClientKeepAliveInSeconds;
+    }
+
+    public void setHttpClientKeepAliveInSeconds(int httpClientKeepAliveInSeconds) {
+        this.httpClientKeepAliveInSeconds = httpClientKeepAliveInSeconds;
+    }
+
+    public int getHttpClientIdleConnectionTimeoutInSeconds() {
+        return httpClientIdleConnectionTimeoutInSeconds;
+    }
+
+    public void setHttpClientIdleConnectionTimeoutInSeconds(int httpClientIdleConnectionTimeoutInSeconds) {
+        this.httpClientIdleConnectionTimeoutInSeconds = httpClientIdleConnectionTimeoutInSeconds;
+    }
+
+    public int getTrustStoreCheckIntervalInSeconds() {
+        return trustStoreCheckIntervalInSeconds;
+    }
+
+    public void setTrustStoreCheckIntervalInSeconds(int trustStoreCheckIntervalInSeconds) {
+        this.trustStoreCheckIntervalInSeconds = trustStoreCheckIntervalInSeconds;
+    }
+
+    public int getDiscoveryCacheMaxSize() {
+        return discoveryCacheMaxSize;
+    }
+
+    public void setDiscoveryCacheMaxSize(int discoveryCacheMaxSize) {
+        this.discoveryCacheMaxSize = discoveryCacheMaxSize;
+    }
+
+    public int getDiscoveryCacheDefaultTtlInMinutes() {
+        return discoveryCacheDefaultTtlInMinutes;
+    }
+
+    public void setDiscoveryCacheDefaultTtlInMinutes(int discoveryCacheDefaultTtlInMinutes) {
+        this.discoveryCacheDefaultTtlInMinutes = discoveryCacheDefaultTtlInMinutes;
+    }
+
+    public int getDiscoveryCacheMinTtlInSeconds() {
+        return discoveryCacheMinTtlInSeconds;
+    }
+
+    public void setDiscoveryCacheMinTtlInSeconds(int discoveryCacheMinTtlInSeconds) {
+        this.discoveryCacheMinTtlInSeconds = discoveryCacheMinTtlInSeconds;
+    }
+
+    public int getDiscoveryCacheMaxTtlInMinutes() {
+        return discoveryCacheMaxTtlInMinutes;
+    }
+
+    public void setDiscoveryCacheMaxTtlInMinutes(int discoveryCacheMaxTtlInMinutes) {
+        this.discoveryCacheMaxTtlInMinutes = discoveryCacheMaxTtlInMinutes;
+    }
+
+    public int getPublicOpKeyRefetchMinIntervalInSeconds() {
+        return publicOpKeyRefetchMinIntervalInSeconds;
+    }
+
+    public void setPublicOpKeyRefetchMinIntervalInSeconds(int publicOpKeyRefetchMinIntervalInSeconds) {
+        this.publicOpKeyRefetchMinIntervalInSeconds = publicOpKeyRefetchMinIntervalInSeconds;
+    }
+
+    public int getPublicOpKeyNegativeCacheInSeconds() {
+        return publicOpKeyNegativeCacheInSeconds;
+    }
+
+    public void setPublicOpKeyNegativeCacheInSeconds(int publicOpKeyNegativeCacheInSeconds) {
+        this.publicOpKeyNegativeCacheInSeconds = publicOpKeyNegativeCacheInSeconds;
+    }
+
+    public Boolean getValidateJwtAccessTokenLocally() {
+        return validateJwtAccessTokenLocally;
+    }
+
+    public void setValidateJwtAccessTokenLocally(Boolean validateJwtAccessTokenLocally) {
+        this.validateJwtAccessTokenLocally = validateJwtAccessTokenLocally;
+    }
+
+    public Boolean getValidateJwtRptLocally() {
+        return validateJwtRptLocally;
+    }
+
+    public void setValidateJwtRptLocally(Boolean validateJwtRptLocally) {
+        this.validateJwtRptLocally = validateJwtRptLocally;
+    }
+
+    public int getIntrospectionCacheMaxSize() {
+        return introspectionCacheMaxSize;
+    }
+
+    public void setIntrospectionCacheMaxSize(int introspectionCacheMaxSize) {
+        this.introspectionCacheMaxSize = introspectionCacheMaxSize;
+    }
+
+    public int getIntrospectionCacheMaxTtlInSeconds() {
+        return introspectionCacheMaxTtlInSeconds;
+    }
+
+    public void setIntrospectionCacheMaxTtlInSeconds(int introspectionCacheMaxTtlInSeconds) {
+        this.introspectionCacheMaxTtlInSeconds = introspectionCacheMaxTtlInSeconds;
+    }
+
+    public int getIntrospectionCacheNegativeTtlInSeconds() {
+        return introspectionCacheNegativeTtlInSeconds;
+    }
+
+    public void setIntrospectionCacheNegativeTtlInSeconds(int introspectionCacheNegativeTtlInSeconds) {
+        this.introspectionCacheNegativeTtlInSeconds = introspectionCacheNegativeTtlInSeconds;
+    }
+
+    public Boolean getIntrospectionCacheUseRedis() {
+        return introspectionCacheUseRedis;
+    }
+
+    public void setIntrospectionCacheUseRedis(Boolean introspectionCacheUseRedis) {
+        this.introspectionCacheUseRedis = introspectionCacheUseRedis;
+    }
+
+    public int getPermissionTicketCacheTtlInSeconds() {
+        return permissionTicketCacheTtlInSeconds;
+    }
+
+    public void setPermissionTicketCacheTtlInSeconds(int permissionTicketCacheTtlInSeconds) {
+        this.permissionTicketCacheTtlInSeconds = permissionTicketCacheTtlInSeconds;
+    }
+
+    public int getPermissionTicketCacheMaxSize() {
+        return permissionTicketCacheMaxSize;
+    }
+
+    public void setPermissionTicketCacheMaxSize(int permissionTicketCacheMaxSize) {
+        this.permissionTicketCacheMaxSize = permissionTicketCacheMaxSize;
+    }
+
+    public int getOpRequestExecutorThreads() {
+        return opRequestExecutorThreads;
+    }
+
+    public void setOpRequestExecutorThreads(int opRequestExecutorThreads) {
+        this.opRequestExecutorThreads = opRequestExecutorThreads;
+    }
+
+    public int getOpRequestMaxConcurrencyPerOp() {
+        return opRequestMaxConcurrencyPerOp;
+    }
+
+    public void setOpRequestMaxConcurrencyPerOp(int opRequestMaxConcurrencyPerOp) {
+        this.opRequestMaxConcurrencyPerOp = opRequestMaxConcurrencyPerOp;
+    }
+
+    public int getTokenRefreshMarginInSeconds() {
+        return tokenRefreshMarginInSeconds;
+    }
+
+    public void setTokenRefreshMarginInSeconds(int tokenRefreshMarginInSeconds) {
+        this.tokenRefreshMarginInSeconds = tokenRefreshMarginInSeconds;
+    }
+
+    public int getTokenRefreshCheckIntervalInSeconds() {
+        return tokenRefreshCheckIntervalInSeconds;
+    }
+
+    public void setTokenRefreshCheckIntervalInSeconds(int tokenRefreshCheckIntervalInSeconds) {
+        this.tokenRefreshCheckIntervalInSeconds = tokenRefreshCheckIntervalInSeconds;
+    }
+
+    public int getTokenRefreshJitterInSeconds() {
+        return tokenRefreshJitterInSeconds;
+    }
+
+    public void setTokenRefreshJitterInSeconds(int tokenRefreshJitterInSeconds) {
+        this.tokenRefreshJitterInSeconds = tokenRefreshJitterInSeconds;
+    }
+
+    public int getTokenRefreshIdleRpTimeoutInSeconds() {
+        return tokenRefreshIdleRpTimeoutInSeconds;
+    }
+
+    public void setTokenRefreshIdleRpTimeoutInSeconds(int tokenRefreshIdleRpTimeoutInSeconds) {
+        this.tokenRefreshIdleRpTimeoutInSeconds = tokenRefreshIdleRpTimeoutInSeconds;
+    }
+
+    public Boolean getClientTokenCacheEnabled() {
+        return clientTokenCacheEnabled;
+    }
+
+    public void setClientTokenCacheEnabled(Boolean clientTokenCacheEnabled) {
+        this.clientTokenCacheEnabled = clientTokenCacheEnabled;
+    }
+
+    public int getClientTokenCacheMaxSize() {
+        return clientTokenCacheMaxSize;
+    }
+
+    public void setClientTokenCacheMaxSize(int clientTokenCacheMaxSize) {
+        this.clientTokenCacheMaxSize = clientTokenCacheMaxSize;
+    }
+
+    public Double getClientTokenCacheReuseFraction() {
+        return clientTokenCacheReuseFraction;
+    }
+
+    public void setClientTokenCacheReuseFraction(Double clientTokenCacheReuseFraction) {
+        this.clientTokenCacheReuseFraction = clientTokenCacheReuseFraction;
+    }
+
+    public Boolean getClientAssertionCacheEnabled() {
+        return clientAssertionCacheEnabled;
+    }
+
+    public void setClientAssertionCacheEnabled(Boolean clientAssertionCacheEnabled) {
+        this.clientAssertionCacheEnabled = clientAssertionCacheEnabled;
+    }
+
+    public int getClientAssertionCacheMaxSize() {
+        return clientAssertionCacheMaxSize;
+    }
+
+    public void setClientAssertionCacheMaxSize(int clientAssertionCacheMaxSize) {
+        this.clientAssertionCacheMaxSize = clientAssertionCacheMaxSize;
+    }
+
+    public int getClientAssertionExpirationMarginInSeconds() {
+        return clientAssertionExpirationMarginInSeconds;
+    }
+
+    public void setClientAssertionExpirationMarginInSeconds(int clientAssertionExpirationMarginInSeconds) {
+        this.clientAssertionExpirationMarginInSeconds = clientAssertionExpirationMarginInSeconds;
+    }
+
+    public int getRpCacheMaxSize() {
+        return rpCacheMaxSize;
+    }
+
+    public void setRpCacheMaxSize(int rpCacheMaxSize) {
+        this.rpCacheMaxSize = rpCacheMaxSize;
+    }
+
+    public List<String> getRpCachePinnedOxdIds() {
+        return rpCachePinnedOxdIds;
+    }
+
+    public void setRpCachePinnedOxdIds(List<String> rpCachePinnedOxdIds) {
+        this.rpCachePinnedOxdIds = rpCachePinnedOxdIds;
+    }
+
+    public int getRpCacheRefreshThreads() {
+        return rpCacheRefreshThreads;
+    }
+
+    public void setRpCacheRefreshThreads(int rpCacheRefreshThreads) {
+        this.rpCacheRefreshThreads = rpCacheRefreshThreads;
+    }
+
+    public String getLoginTokensStorage() {
+        return loginTokensStorage;
+    }
+
+    public void setLoginTokensStorage(String loginTokensStorage) {
+        this.loginTokensStorage = loginTokensStorage;
+    }
+
+    public Boolean getRpWriteBehindEnabled() {
+        return rpWriteBehindEnabled;
+    }
+
+    public void setRpWriteBehindEnabled(Boolean rpWriteBehindEnabled) {
+        this.rpWriteBehindEnabled = rpWriteBehindEnabled;
+    }
+
+    public int getRpWriteBehindDelayInMillis() {
+        return rpWriteBehindDelayInMillis;
+    }
+
+    public void setRpWriteBehindDelayInMillis(int rpWriteBehindDelayInMillis) {
+        this.rpWriteBehindDelayInMillis = rpWriteBehindDelayInMillis;
+    }
+
+    public int getRpWriteBehindBatchSize() {
+        return rpWriteBehindBatchSize;
+    }
+
+    public void setRpWriteBehindBatchSize(int rpWriteBehindBatchSize) {
+        this.rpWriteBehindBatchSize = rpWriteBehindBatchSize;
+    }
+
+    public int getRpWriteBehindMaxSize() {
+        return rpWriteBehindMaxSize;
+    }
+
+    public void setRpWriteBehindMaxSize(int rpWriteBehindMaxSize) {
+        this.rpWriteBehindMaxSize = rpWriteBehindMaxSize;
+    }
+
+    public int getRpWriteBehindMaxRetryDelayInMillis() {
+        return rpWriteBehindMaxRetryDelayInMillis;
+    }
+
+    public void setRpWriteBehindMaxRetryDelayInMillis(int rpWriteBehindMaxRetryDelayInMillis) {
+        this.rpWriteBehindMaxRetryDelayInMillis = rpWriteBehindMaxRetryDelayInMillis;
+    }
+
+    public int getHttpClientConnectTimeoutInMillis() {
+        return httpClientConnectTimeoutInMillis;
+    }
+
+    public void setHttpClientConnectTimeoutInMillis(int httpClientConnectTimeoutInMillis) {
+        this.httpClientConnectTimeoutInMillis = httpClientConnectTimeoutInMillis;
+    }
+
+    public int getHttpClientSocketTimeoutInMillis() {
+        return httpClientSocketTimeoutInMillis;
+    }
+
+    public void setHttpClientSocketTimeoutInMillis(int httpClientSocketTimeoutInMillis) {
+        this.httpClientSocketTimeoutInMillis = httpClientSocketTimeoutInMillis;
+    }
+
+    public int getHttpClientConnectionRequestTimeoutInMillis() {
+        return httpClientConnectionRequestTimeoutInMillis;
+    }
+
+    public void setHttpClientConnectionRequestTimeoutInMillis(int httpClientConnectionRequestTimeoutInMillis) {
+        this.httpClientConnectionRequestTimeoutInMillis = httpClientConnectionRequestTimeoutInMillis;
+    }
+
     @Override
     public String toString() {
         return "OxdServerConfiguration{" +
@@ -308,6 +738,49 @@ public class OxdServerConfiguration extends Configuration {
                 ", defaultSiteConfig=" + defaultSiteConfig + '\'' +
                 ", allowedOpHosts=" + allowedOpHosts + '\'' +
                 ", addClientCredentialsGrantTypeAutomaticallyDuringClientRegistration=" + addClientCredentialsGrantTypeAutomaticallyDuringClientRegistration +
+                ", httpClientMaxTotalConnections=" + httpClientMaxTotalConnections +
+                ", httpClientMaxConnectionsPerRoute=" + httpClientMaxConnectionsPerRoute +
+                ", httpClientKeepAliveInSeconds=" + httpClientKeepAliveInSeconds +
+                ", httpClientIdleConnectionTimeoutInSeconds=" + httpClientIdleConnectionTimeoutInSeconds +
+                ", trustStoreCheckIntervalInSeconds=" + trustStoreCheckIntervalInSeconds +
+                ", discoveryCacheMaxSize=" + discoveryCacheMaxSize +
+                ", discoveryCacheDefaultTtlInMinutes=" + discoveryCacheDefaultTtlInMinutes +
+                ", discoveryCacheMinTtlInSeconds=" + discoveryCacheMinTtlInSeconds +
+                ", discoveryCacheMaxTtlInMinutes=" + discoveryCacheMaxTtlInMinutes +
+                ", publicOpKeyRefetchMinIntervalInSeconds=" + publicOpKeyRefetchMinIntervalInSeconds +
+                ", publicOpKeyNegativeCacheInSeconds=" + publicOpKeyNegativeCacheInSeconds +
+                ", validateJwtAccessTokenLocally=" + validateJwtAccessTokenLocally +
+                ", validateJwtRptLocally=" + validateJwtRptLocally +
+                ", introspectionCacheMaxSize=" + introspectionCacheMaxSize +
+                ", introspectionCacheMaxTtlInSeconds=" + introspectionCacheMaxTtlInSeconds +
+                ", introspectionCacheNegativeTtlInSeconds=" + introspectionCacheNegativeTtlInSeconds +
+                ", introspectionCacheUseRedis=" + introspectionCacheUseRedis +
+                ", permissionTicketCacheTtlInSeconds=" + permissionTicketCacheTtlInSeconds +
+                ", permissionTicketCacheMaxSize=" + permissionTicketCacheMaxSize +
+                ", opRequestExecutorThreads=" + opRequestExecutorThreads +
+                ", opRequestMaxConcurrencyPerOp=" + opRequestMaxConcurrencyPerOp +
+                ", tokenRefreshMarginInSeconds=" + tokenRefreshMarginInSeconds +
+                ", tokenRefreshCheckIntervalInSeconds=" + tokenRefreshCheckIntervalInSeconds +
+                ", tokenRefreshJitterInSeconds=" + tokenRefreshJitterInSeconds +
+                ", tokenRefreshIdleRpTimeoutInSeconds=" + tokenRefreshIdleRpTimeoutInSeconds +
+                ", clientTokenCacheEnabled=" + clientTokenCacheEnabled +
+                ", clientTokenCacheMaxSize=" + clientTokenCacheMaxSize +
+                ", clientTokenCacheReuseFraction=" + clientTokenCacheReuseFraction +
+                ", clientAssertionCacheEnabled=" + clientAssertionCacheEnabled +
+                ", clientAssertionCacheMaxSize=" + clientAssertionCacheMaxSize +
+                ", clientAssertionExpirationMarginInSeconds=" + clientAssertionExpirationMarginInSeconds +
+                ", rpCacheMaxSize=" + rpCacheMaxSize +
+                ", rpCachePinnedOxdIds=" + rpCachePinnedOxdIds +
+                ", rpCacheRefreshThreads=" + rpCacheRefreshThreads +
+                ", loginTokensStorage='" + loginTokensStorage + '\'' +
+                ", rpWriteBehindEnabled=" + rpWriteBehindEnabled +
+                ", rpWriteBehindDelayInMillis=" + rpWriteBehindDelayInMillis +
+                ", rpWriteBehindBatchSize=" + rpWriteBehindBatchSize +
+                ", rpWriteBehindMaxSize=" + rpWriteBehindMaxSize +
+                ", rpWriteBehindMaxRetryDelayInMillis=" + rpWriteBehindMaxRetryDelayInMillis +
+                ", httpClientConnectTimeoutInMillis=" + httpClientConnectTimeoutInMillis +
+                ", httpClientSocketTimeoutInMillis=" + httpClientSocketTimeoutInMillis +
+                ", httpClientConnectionRequestTimeoutInMillis=" + httpClientConnectionRequestTimeoutInMillis +
                 '}';
     }
 }
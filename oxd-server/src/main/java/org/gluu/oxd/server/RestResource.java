@@ -157,6 +157,14 @@ public class RestResource {
         return process(CommandType.RS_CHECK_ACCESS, params, RsCheckAccessParams.class, authorization, uriInfo);
     }
 
+    @POST
+    @Path("/uma-rs-check-access-batch")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public String umaRsCheckAccessBatch(@HeaderParam("Authorization") String authorization, String params) {
+        return process(CommandType.RS_CHECK_ACCESS_BATCH, params, RsCheckAccessBatchParams.class, authorization, uriInfo);
+    }
+
     @POST
     @Path("/uma-rp-get-rpt")
     @Produces(MediaType.APPLICATION_JSON)
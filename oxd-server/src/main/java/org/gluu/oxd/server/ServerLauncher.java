@@ -13,8 +13,13 @@ import org.slf4j.LoggerFactory;
 import org.gluu.oxd.server.guice.GuiceModule;
 import org.gluu.oxd.server.persistence.PersistenceService;
 import org.gluu.oxd.server.service.ConfigurationService;
+import org.gluu.oxd.server.service.DiscoveryService;
+import org.gluu.oxd.server.service.HttpService;
 import org.gluu.oxd.server.service.MigrationService;
+import org.gluu.oxd.server.service.OpRequestExecutor;
+import org.gluu.oxd.server.service.PublicOpKeyService;
 import org.gluu.oxd.server.service.RpService;
+import org.gluu.oxd.server.service.TokenRefreshService;
 
 import java.io.InputStream;
 import java.security.Provider;
@@ -45,9 +50,13 @@ public class ServerLauncher {
         try {
             LOG.info("Configuration: " + configuration);
             INJECTOR.getInstance(ConfigurationService.class).setConfiguration(configuration);
+            INJECTOR.getInstance(HttpService.class).create();
             INJECTOR.getInstance(PersistenceService.class).create();
             INJECTOR.getInstance(RpService.class).load();
             INJECTOR.getInstance(MigrationService.class).migrate();
+            INJECTOR.getInstance(DiscoveryService.class).loadSnapshots();
+            INJECTOR.getInstance(PublicOpKeyService.class).loadSnapshots();
+            INJECTOR.getInstance(TokenRefreshService.class).start();
             LOG.info("oxD Services are configured successfully.");
         } catch (Throwable e) {
             LOG.error("Failed to start oxd server.", e);
@@ -113,6 +122,37 @@ public class ServerLauncher {
 
     public static void shutdown(boolean systemExit) {
         LOG.info("Stopping the server...");
+        // stop background work first, then flush rp writes and only after that release http and persistence
+        try {
+            INJECTOR.getInstance(TokenRefreshService.class).destroy();
+        } catch (Throwable e) {
+            LOG.error("Failed to stop token refresh scheduler.", e);
+        }
+        try {
+            INJECTOR.getInstance(OpRequestExecutor.class).destroy();
+        } catch (Throwable e) {
+            LOG.error("Failed to stop OP request executor.", e);
+        }
+        try {
+            INJECTOR.getInstance(DiscoveryService.class).destroy();
+        } catch (Throwable e) {
+            LOG.error("Failed to stop discovery refresh executor.", e);
+        }
+        try {
+            INJECTOR.getInstance(PublicOpKeyService.class).destroy();
+        } catch (Throwable e) {
+            LOG.error("Failed to stop public key refresh executor.", e);
+        }
+        try {
+            INJECTOR.getInstance(RpService.class).destroy();
+        } catch (Throwable e) {
+            LOG.error("Failed to stop rp service (cache refresh and write-behind flush).", e);
+        }
+        try {
+            INJECTOR.getInstance(HttpService.class).destroy();
+        } catch (Throwable e) {
+            LOG.error("Failed to release http connection pool.", e);
+        }
         try {
             INJECTOR.getInstance(PersistenceService.class).destroy();
         } catch (Throwable e) {
@@ -12,6 +12,9 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -76,6 +79,55 @@ public class Utils {
         return Base64.encodeBase64String(Util.getBytes(username + ":" + password));
     }
 
+    /**
+     * Returns time-to-live defined by Cache-Control (max-age, no-cache, no-store) or Expires http headers.
+     *
+     * @param headers response headers
+     * @return ttl in seconds, 0 if response must not be cached, -1 if headers do not define ttl
+     */
+    public static long cacheTtlInSeconds(Map<String, ? extends List<?>> headers) {
+        if (headers == null) {
+            return -1;
+        }
+
+        final String cacheControl = headerValue(headers, "Cache-Control");
+        if (StringUtils.isNotBlank(cacheControl)) {
+            for (String directive : cacheControl.split(",")) {
+                directive = directive.trim().toLowerCase();
+                if (directive.equals("no-store") || directive.equals("no-cache")) {
+                    return 0;
+                }
+                if (directive.startsWith("max-age=")) {
+                    try {
+                        return Math.max(0, Long.parseLong(StringUtils.removeStart(directive, "max-age=").replace("\"", "")));
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+
+        final String expires = headerValue(headers, "Expires");
+        if (StringUtils.isNotBlank(expires)) {
+            try {
+                final long expiresAt = ZonedDateTime.parse(expires.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return Math.max(0, (expiresAt - System.currentTimeMillis()) / 1000);
+            } catch (DateTimeParseException e) {
+                return 0; // invalid Expires value means "already expired"
+            }
+        }
+        return -1;
+    }
+
+    private static String headerValue(Map<String, ? extends List<?>> headers, String name) {
+        for (Map.Entry<String, ? extends List<?>> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey()) && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                return Joiner.on(",").skipNulls().join(entry.getValue());
+            }
+        }
+        return null;
+    }
+
     public static boolean isValidUrl(String url) {
         if (StringUtils.isNotBlank(url)) {
             try {
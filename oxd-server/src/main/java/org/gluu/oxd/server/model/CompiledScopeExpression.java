@@ -0,0 +1,137 @@
+package org.gluu.oxd.server.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import org.gluu.oxauth.model.uma.JsonLogicNode;
+import org.gluu.oxauth.model.uma.JsonLogicNodeParser;
+import org.gluu.oxd.common.Jackson2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Scope expression (JsonLogic rule with scopes as data) compiled once into immutable predicate, e.g.
+ * {"rule":{"and":[{"or":[{"var":0},{"var":1}]},{"var":2}]},"data":["scope0","scope1","scope2"]}.
+ * <p>
+ * Supported operators are "and", "or" and "var" (index of scope in data), same as accepted by scope expression
+ * validation of uma_rs_protect.
+ */
+public final class CompiledScopeExpression {
+
+    private final String expression;
+    private final List<String> data;
+    private final Predicate<Collection<String>> predicate;
+
+    private CompiledScopeExpression(String expression, List<String> data, Predicate<Collection<String>> predicate) {
+        this.expression = expression;
+        this.data = data;
+        this.predicate = predicate;
+    }
+
+    /**
+     * @throws IllegalArgumentException if expression is not valid or contains unsupported operator
+     */
+    public static CompiledScopeExpression compile(String expression) {
+        final JsonLogicNode node = JsonLogicNodeParser.parseNode(expression);
+        if (node == null || node.getRule() == null || node.getData() == null) {
+            throw new IllegalArgumentException("Failed to parse scope expression: " + expression);
+        }
+
+        try {
+            final List<String> data = ImmutableList.copyOf(node.getData());
+            final JsonNode rule = Jackson2.createJsonMapper().readTree(node.getRule().toString());
+            return new CompiledScopeExpression(expression, data, compile(rule, data));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to parse scope expression: " + expression, e);
+        }
+    }
+
+    private static Predicate<Collection<String>> compile(JsonNode rule, List<String> data) {
+        if (rule == null || !rule.isObject() || rule.size() != 1) {
+            throw new IllegalArgumentException("Rule must be object with one operator, rule: " + rule);
+        }
+
+        final Map.Entry<String, JsonNode> operation = rule.fields().next();
+        final String operator = operation.getKey();
+        final JsonNode arguments = operation.getValue();
+
+        if ("var".equals(operator)) {
+            final String scope = data.get(varIndex(arguments, data));
+            return scopes -> scopes.contains(scope);
+        }
+        if ("and".equals(operator) || "or".equals(operator)) {
+            if (!arguments.isArray() || arguments.size() == 0) {
+                throw new IllegalArgumentException("Operator '" + operator + "' requires non-empty array of arguments.");
+            }
+            final List<Predicate<Collection<String>>> predicates = new ArrayList<>();
+            for (Iterator<JsonNode> it = arguments.elements(); it.hasNext(); ) {
+                predicates.add(compile(it.next(), data));
+            }
+
+            if ("and".equals(operator)) {
+                return scopes -> {
+                    for (Predicate<Collection<String>> predicate : predicates) {
+                        if (!predicate.test(scopes)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                };
+            }
+            return scopes -> {
+                for (Predicate<Collection<String>> predicate : predicates) {
+                    if (predicate.test(scopes)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+        throw new IllegalArgumentException("Unsupported operator '" + operator + "' in scope expression.");
+    }
+
+    private static int varIndex(JsonNode argument, List<String> data) {
+        final JsonNode index = argument.isArray() && argument.size() > 0 ? argument.get(0) : argument;
+        final int i;
+        if (index.isInt()) {
+            i = index.asInt();
+        } else if (index.isTextual() && index.asText().matches("\\d+")) {
+            i = Integer.parseInt(index.asText());
+        } else {
+            throw new IllegalArgumentException("Unsupported var argument: " + argument);
+        }
+        if (i < 0 || i >= data.size()) {
+            throw new IllegalArgumentException("Var index is out of data bounds, index: " + i + ", data: " + data);
+        }
+        return i;
+    }
+
+    /**
+     * @param scopes granted scopes
+     * @return whether granted scopes satisfy expression
+     */
+    public boolean evaluate(Collection<String> scopes) {
+        return scopes != null && predicate.test(scopes);
+    }
+
+    public List<String> getData() {
+        return data;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledScopeExpression{" +
+                "expression='" + expression + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,76 @@
+package org.gluu.oxd.server.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Last good document fetched from OP (discovery, uma discovery or jwks) which is persisted
+ * in order to serve it right after restart while it is revalidated in background.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OpSnapshot {
+
+    public enum Type {
+        DISCOVERY, UMA_DISCOVERY, JWKS
+    }
+
+    @JsonProperty(value = "url")
+    private String url;
+    @JsonProperty(value = "type")
+    private Type type;
+    @JsonProperty(value = "data")
+    private String data;
+    @JsonProperty(value = "created_at")
+    private long createdAt;
+
+    public OpSnapshot() {
+    }
+
+    public OpSnapshot(String url, Type type, String data) {
+        this.url = url;
+        this.type = type;
+        this.data = data;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public void setData(String data) {
+        this.data = data;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OpSnapshot{" +
+                "url='" + url + '\'' +
+                ", type=" + type +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,245 @@
+package org.gluu.oxd.server.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.gluu.oxd.server.service.Rp;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token state of RP (PAT, OAuth token or RPT) which is persisted separately from RP, so token refresh does not
+ * rewrite whole RP. Entry expires together with token.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RpToken {
+
+    public enum Type {
+        PAT, OAUTH_TOKEN, RPT
+    }
+
+    @JsonProperty(value = "oxd_id")
+    private String oxdId;
+    @JsonProperty(value = "type")
+    private Type type;
+    @JsonProperty(value = "token")
+    private String token;
+    @JsonProperty(value = "refresh_token")
+    private String refreshToken;
+    @JsonProperty(value = "token_type")
+    private String tokenType;
+    @JsonProperty(value = "pct")
+    private String pct;
+    @JsonProperty(value = "upgraded")
+    private Boolean upgraded;
+    @JsonProperty(value = "expires_in")
+    private Integer expiresIn;
+    @JsonProperty(value = "created_at")
+    private Date createdAt;
+    @JsonProperty(value = "expires_at")
+    private Date expiresAt;
+
+    public RpToken() {
+    }
+
+    /**
+     * @return token of given type taken from rp or null if rp does not have such token
+     */
+    public static RpToken of(Rp rp, Type type) {
+        final RpToken result = new RpToken();
+        result.oxdId = rp.getOxdId();
+        result.type = type;
+        switch (type) {
+            case PAT:
+                result.token = rp.getPat();
+                result.refreshToken = rp.getPatRefreshToken();
+                result.expiresIn = rp.getPatExpiresIn();
+                result.createdAt = rp.getPatCreatedAt();
+                result.expiresAt = expiresAt(rp.getPatCreatedAt(), rp.getPatExpiresIn());
+                break;
+            case OAUTH_TOKEN:
+                result.token = rp.getOauthToken();
+                result.refreshToken = rp.getOauthTokenRefreshToken();
+                result.expiresIn = rp.getOauthTokenExpiresIn();
+                result.createdAt = rp.getOauthTokenCreatedAt();
+                result.expiresAt = expiresAt(rp.getOauthTokenCreatedAt(), rp.getOauthTokenExpiresIn());
+                break;
+            case RPT:
+                result.token = rp.getRpt();
+                result.tokenType = rp.getRptTokenType();
+                result.pct = rp.getRptPct();
+                result.upgraded = rp.getRptUpgraded();
+                result.createdAt = rp.getRptCreatedAt();
+                result.expiresAt = rp.getRptExpiresAt();
+                break;
+        }
+        return result.token != null ? result : null;
+    }
+
+    private static Date expiresAt(Date createdAt, Integer expiresIn) {
+        if (createdAt == null || expiresIn == null) {
+            return null;
+        }
+        return new Date(createdAt.getTime() + TimeUnit.SECONDS.toMillis(expiresIn));
+    }
+
+    public void applyTo(Rp rp) {
+        switch (type) {
+            case PAT:
+                rp.setPat(token);
+                rp.setPatRefreshToken(refreshToken);
+                rp.setPatExpiresIn(expiresIn);
+                rp.setPatCreatedAt(createdAt);
+                break;
+            case OAUTH_TOKEN:
+                rp.setOauthToken(token);
+                rp.setOauthTokenRefreshToken(refreshToken);
+                rp.setOauthTokenExpiresIn(expiresIn);
+                rp.setOauthTokenCreatedAt(createdAt);
+                break;
+            case RPT:
+                rp.setRpt(token);
+                rp.setRptTokenType(tokenType);
+                rp.setRptPct(pct);
+                rp.setRptUpgraded(upgraded);
+                rp.setRptCreatedAt(createdAt);
+                rp.setRptExpiresAt(expiresAt);
+                break;
+        }
+    }
+
+    /**
+     * Clears all token fields of rp (they are persisted as separate RpToken entries).
+     */
+    public static void clear(Rp rp) {
+        rp.setPat(null);
+        rp.setPatRefreshToken(null);
+        rp.setPatExpiresIn(null);
+        rp.setPatCreatedAt(null);
+        rp.setOauthToken(null);
+        rp.setOauthTokenRefreshToken(null);
+        rp.setOauthTokenExpiresIn(null);
+        rp.setOauthTokenCreatedAt(null);
+        rp.setRpt(null);
+        rp.setRptTokenType(null);
+        rp.setRptPct(null);
+        rp.setRptUpgraded(null);
+        rp.setRptCreatedAt(null);
+        rp.setRptExpiresAt(null);
+    }
+
+    /**
+     * @return seconds till expiration, 0 if token does not expire (or expiration is unknown)
+     */
+    @JsonIgnore
+    public int getExpirationInSeconds() {
+        if (expiresAt == null) {
+            return 0;
+        }
+        return (int) Math.max(TimeUnit.MILLISECONDS.toSeconds(expiresAt.getTime() - System.currentTimeMillis()), 1);
+    }
+
+    public String getOxdId() {
+        return oxdId;
+    }
+
+    public void setOxdId(String oxdId) {
+        this.oxdId = oxdId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public void setTokenType(String tokenType) {
+        this.tokenType = tokenType;
+    }
+
+    public String getPct() {
+        return pct;
+    }
+
+    public void setPct(String pct) {
+        this.pct = pct;
+    }
+
+    public Boolean getUpgraded() {
+        return upgraded;
+    }
+
+    public void setUpgraded(Boolean upgraded) {
+        this.upgraded = upgraded;
+    }
+
+    public Integer getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(Integer expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return whether token state differs (used to persist only changed tokens)
+     */
+    public static boolean isChanged(RpToken a, RpToken b) {
+        if (a == null || b == null) {
+            return a != b;
+        }
+        return !Objects.equals(a.token, b.token) || !Objects.equals(a.refreshToken, b.refreshToken)
+                || !Objects.equals(a.createdAt, b.createdAt) || !Objects.equals(a.expiresAt, b.expiresAt)
+                || !Objects.equals(a.pct, b.pct) || !Objects.equals(a.upgraded, b.upgraded);
+    }
+
+    @Override
+    public String toString() {
+        return "RpToken{" +
+                "oxdId='" + oxdId + '\'' +
+                ", type=" + type +
+                ", createdAt=" + createdAt +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -1,5 +1,6 @@
 package org.gluu.oxd.server.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.Lists;
 
@@ -25,6 +26,25 @@ public class UmaResource {
     @JsonProperty(value = "ticketScopes")
     private List<String> ticketScopes = Lists.newArrayList();
 
+    @JsonIgnore
+    private volatile CompiledScopeExpression compiledScopeExpression;
+    @JsonIgnore
+    private volatile boolean scopeExpressionNotCompilable; // e.g. stored before uma_rs_protect rejected unsupported operators
+
+    public UmaResource() {
+    }
+
+    public UmaResource(UmaResource resource) {
+        this.id = resource.id;
+        this.path = resource.path;
+        this.httpMethods = resource.httpMethods != null ? Lists.newArrayList(resource.httpMethods) : null;
+        this.scopes = resource.scopes != null ? Lists.newArrayList(resource.scopes) : null;
+        this.scopeExpressions = resource.scopeExpressions != null ? Lists.newArrayList(resource.scopeExpressions) : null;
+        this.ticketScopes = resource.ticketScopes != null ? Lists.newArrayList(resource.ticketScopes) : null;
+        this.compiledScopeExpression = resource.compiledScopeExpression;
+        this.scopeExpressionNotCompilable = resource.scopeExpressionNotCompilable;
+    }
+
     public List<String> getScopeExpressions() {
         if (scopeExpressions == null) {
             scopeExpressions = Lists.newArrayList();
@@ -34,6 +54,26 @@ public class UmaResource {
 
     public void setScopeExpressions(List<String> scopeExpressions) {
         this.scopeExpressions = scopeExpressions;
+        this.compiledScopeExpression = null;
+        this.scopeExpressionNotCompilable = false;
+    }
+
+    /**
+     * @return first scope expression compiled once and reused, null if resource does not have scope expression or
+     * it can't be compiled
+     */
+    public CompiledScopeExpression compiledScopeExpression() {
+        CompiledScopeExpression compiled = compiledScopeExpression;
+        if (compiled == null && !scopeExpressionNotCompilable && !getScopeExpressions().isEmpty()) {
+            try {
+                compiled = CompiledScopeExpression.compile(getScopeExpressions().get(0));
+                compiledScopeExpression = compiled;
+            } catch (IllegalArgumentException e) {
+                scopeExpressionNotCompilable = true;
+                return null;
+            }
+        }
+        return compiled;
     }
 
     public String getId() {
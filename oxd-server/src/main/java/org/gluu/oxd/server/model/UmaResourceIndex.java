@@ -0,0 +1,151 @@
+package org.gluu.oxd.server.model;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable index of RP's protected resources used to find resource by path and http method.
+ * <p>
+ * Exact paths are looked up in hash map keyed by http method. If there is no exact match, path is matched against
+ * path templates stored in trie by path segments:
+ * - {param} matches exactly one segment,
+ * - * matches exactly one segment, or all remaining segments if it is the last segment of template.
+ * <p>
+ * Literal segments have priority over {param}, {param} has priority over *. If the same path and http method are
+ * protected more than once, the last resource in the list wins (same as it was with linear scan).
+ */
+public class UmaResourceIndex {
+
+    public static final UmaResourceIndex EMPTY = new UmaResourceIndex(Collections.<UmaResource>emptyList());
+
+    private final Map<String, Map<String, UmaResource>> exact = new HashMap<>();
+    private final Node templates = new Node();
+
+    public UmaResourceIndex(List<UmaResource> resources) {
+        for (UmaResource resource : resources) {
+            if (resource == null || resource.getPath() == null) {
+                continue;
+            }
+            final String path = resource.getPath().toLowerCase(Locale.ROOT);
+            for (String httpMethod : resource.getHttpMethods()) {
+                if (httpMethod == null) {
+                    continue;
+                }
+                final String method = httpMethod.toUpperCase(Locale.ROOT);
+
+                Map<String, UmaResource> byPath = exact.get(method);
+                if (byPath == null) {
+                    byPath = new HashMap<>();
+                    exact.put(method, byPath);
+                }
+                byPath.put(path, resource);
+
+                if (isTemplate(path)) {
+                    templates.add(segments(path), 0).resources.put(method, resource);
+                }
+            }
+        }
+    }
+
+    public UmaResource find(String path, String httpMethod) {
+        if (path == null || httpMethod == null) {
+            return null;
+        }
+        final String lowerCasePath = path.toLowerCase(Locale.ROOT);
+        final String method = httpMethod.toUpperCase(Locale.ROOT);
+
+        final Map<String, UmaResource> byPath = exact.get(method);
+        if (byPath != null) {
+            final UmaResource resource = byPath.get(lowerCasePath);
+            if (resource != null) {
+                return resource;
+            }
+        }
+        return templates.find(segments(lowerCasePath), 0, method);
+    }
+
+    private static boolean isTemplate(String path) {
+        return path.contains("{") || path.contains("*");
+    }
+
+    private static String[] segments(String path) {
+        return StringUtils.split(path, '/');
+    }
+
+    private static boolean isParameter(String segment) {
+        return segment.startsWith("{") && segment.endsWith("}");
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node parameter;
+        private Node wildcard;
+        private final Map<String, UmaResource> resources = new HashMap<>();
+
+        private Node add(String[] segments, int index) {
+            if (index == segments.length) {
+                return this;
+            }
+            final String segment = segments[index];
+            final Node child;
+            if (isParameter(segment)) {
+                if (parameter == null) {
+                    parameter = new Node();
+                }
+                child = parameter;
+            } else if ("*".equals(segment)) {
+                if (wildcard == null) {
+                    wildcard = new Node();
+                }
+                child = wildcard;
+            } else {
+                Node literal = literals.get(segment);
+                if (literal == null) {
+                    literal = new Node();
+                    literals.put(segment, literal);
+                }
+                child = literal;
+            }
+            return child.add(segments, index + 1);
+        }
+
+        private UmaResource find(String[] segments, int index, String method) {
+            if (index == segments.length) {
+                return resources.get(method);
+            }
+            final String segment = segments[index];
+
+            final Node literal = literals.get(segment);
+            if (literal != null) {
+                final UmaResource resource = literal.find(segments, index + 1, method);
+                if (resource != null) {
+                    return resource;
+                }
+            }
+            if (parameter != null) {
+                final UmaResource resource = parameter.find(segments, index + 1, method);
+                if (resource != null) {
+                    return resource;
+                }
+            }
+            if (wildcard != null) {
+                final UmaResource resource = wildcard.find(segments, index + 1, method);
+                if (resource != null) {
+                    return resource;
+                }
+                return wildcard.isLeaf() ? wildcard.resources.get(method) : null; // trailing * matches all remaining segments
+            }
+            return null;
+        }
+
+        private boolean isLeaf() {
+            return literals.isEmpty() && parameter == null && wildcard == null;
+        }
+    }
+}
@@ -11,7 +11,6 @@ import org.gluu.oxd.common.params.HasOxdIdParams;
 import org.gluu.oxd.common.params.IParams;
 import org.gluu.oxd.server.Convertor;
 import org.gluu.oxd.server.HttpException;
-import org.gluu.oxd.server.OxdServerConfiguration;
 import org.gluu.oxd.server.service.*;
 
 /**
@@ -99,8 +98,11 @@ public abstract class BaseOperation<T extends IParams> implements IOperation<T>
     }
 
     public OxAuthCryptoProvider getCryptoProvider() throws Exception {
-        OxdServerConfiguration conf = getConfigurationService().get();
-        return new OxAuthCryptoProvider(conf.getCryptProviderKeyStorePath(), conf.getCryptProviderKeyStorePassword(), conf.getCryptProviderDnName());
+        return getInstance(CryptoProviderService.class).getCryptoProvider();
+    }
+
+    public ClientAssertionCache getClientAssertionCache() {
+        return getInstance(ClientAssertionCache.class);
     }
 
     public OpClientFactory getOpClientFactory() {
@@ -120,6 +122,18 @@ public abstract class BaseOperation<T extends IParams> implements IOperation<T>
         return getInstance(ValidationService.class);
     }
 
+    public PermissionTicketCache getPermissionTicketCache() {
+        return getInstance(PermissionTicketCache.class);
+    }
+
+    public OpRequestExecutor getOpRequestExecutor() {
+        return getInstance(OpRequestExecutor.class);
+    }
+
+    public ClientTokenCache getClientTokenCache() {
+        return getInstance(ClientTokenCache.class);
+    }
+
     /**
      * Returns command
      *
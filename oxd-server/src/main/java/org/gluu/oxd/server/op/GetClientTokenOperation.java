@@ -9,6 +9,7 @@ import org.gluu.oxauth.client.TokenRequest;
 import org.gluu.oxauth.client.TokenResponse;
 import org.gluu.oxauth.model.common.AuthenticationMethod;
 import org.gluu.oxauth.model.common.GrantType;
+import org.gluu.oxauth.model.crypto.OxAuthCryptoProvider;
 import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
 import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxd.common.Command;
@@ -18,9 +19,12 @@ import org.gluu.oxd.common.response.GetClientTokenResponse;
 import org.gluu.oxd.common.response.IOpResponse;
 import org.gluu.oxd.server.HttpException;
 import org.gluu.oxd.server.Utils;
+import org.gluu.oxd.server.service.ClientAssertionCache;
+import org.gluu.oxd.server.service.ClientTokenCache;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -41,7 +45,27 @@ public class GetClientTokenOperation extends BaseOperation<GetClientTokenParams>
     }
 
     @Override
-    public IOpResponse execute(GetClientTokenParams params) {
+    public IOpResponse execute(final GetClientTokenParams params) {
+        try {
+            final ClientTokenCache cache = getClientTokenCache();
+            if (!cache.isEnabled()) {
+                return requestToken(params);
+            }
+            return cache.get(ClientTokenCache.key(params), new Callable<GetClientTokenResponse>() {
+                @Override
+                public GetClientTokenResponse call() {
+                    return requestToken(params);
+                }
+            });
+        } catch (HttpException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(e.getMessage(), e);
+        }
+        throw HttpException.internalError();
+    }
+
+    private GetClientTokenResponse requestToken(GetClientTokenParams params) {
         try {
             final AuthenticationMethod authenticationMethod = AuthenticationMethod.fromString(params.getAuthenticationMethod());
             final String tokenEndpoint = getDiscoveryService().getConnectDiscoveryResponse(params.getOpHost(), params.getOpDiscoveryPath()).getTokenEndpoint();
@@ -57,12 +81,35 @@ public class GetClientTokenOperation extends BaseOperation<GetClientTokenParams>
                     throw new HttpException(ErrorResponseCode.INVALID_SIGNATURE_ALGORITHM);
                 }
 
-                TokenRequest tokenRequest = new TokenRequest(GrantType.CLIENT_CREDENTIALS);
+                final OxAuthCryptoProvider cryptoProvider = getCryptoProvider();
+                final ClientAssertionCache assertionCache = getClientAssertionCache();
+                final String assertionKey = ClientAssertionCache.key(params.getClientId(), tokenEndpoint, params.getAlgorithm(), params.getKeyId());
+
+                TokenRequest tokenRequest = new TokenRequest(GrantType.CLIENT_CREDENTIALS) {
+                    @Override
+                    public String getClientAssertion() {
+                        try {
+                            return assertionCache.get(assertionKey, cryptoProvider, new Callable<String>() {
+                                @Override
+                                public String call() {
+                                    return signClientAssertion();
+                                }
+                            });
+                        } catch (Exception e) {
+                            LOG.error("Failed to get client assertion.", e);
+                            return null;
+                        }
+                    }
+
+                    private String signClientAssertion() {
+                        return super.getClientAssertion();
+                    }
+                };
                 tokenRequest.setScope(scopeAsString(params));
                 tokenRequest.setAuthUsername(params.getClientId());
                 tokenRequest.setAuthenticationMethod(AuthenticationMethod.PRIVATE_KEY_JWT);
                 tokenRequest.setAlgorithm(algorithm);
-                tokenRequest.setCryptoProvider(getCryptoProvider());
+                tokenRequest.setCryptoProvider(cryptoProvider);
                 tokenRequest.setKeyId(params.getKeyId());
                 tokenRequest.setAudience(tokenEndpoint);
 
@@ -84,10 +84,6 @@ public class GetTokensByCodeOperation extends BaseOperation<GetTokensByCodeParam
             validator.validateIdToken();
             validator.validateAccessToken(response.getAccessToken());
 
-            // persist tokens
-            rp.setIdToken(response.getIdToken());
-            rp.setAccessToken(response.getAccessToken());
-            getRpService().update(rp);
             getStateService().deleteExpiredObjectsByKey(params.getState());
 
             LOG.trace("Scope: " + response.getScope());
@@ -98,6 +94,8 @@ public class GetTokensByCodeOperation extends BaseOperation<GetTokensByCodeParam
             opResponse.setRefreshToken(response.getRefreshToken());
             opResponse.setExpiresIn(response.getExpiresIn() != null ? response.getExpiresIn() : -1);
             opResponse.setIdTokenClaims(Jackson2.createJsonMapper().readTree(idToken.getClaims().toJsonString()));
+
+            persistTokens(rp, opResponse);
             return opResponse;
         } else {
             if (response.getStatus() == 400) {
@@ -108,6 +106,21 @@ public class GetTokensByCodeOperation extends BaseOperation<GetTokensByCodeParam
         return null;
     }
 
+    /**
+     * Saves tokens of last login on rp unless login_tokens_storage=none (then tokens are only returned to the caller and
+     * rp is not rewritten on every login).
+     */
+    private void persistTokens(Rp rp, GetTokensByCodeResponse tokens) {
+        if ("none".equalsIgnoreCase(getConfigurationService().get().getLoginTokensStorage())) {
+            return;
+        }
+        getRpService().update(rp.getOxdId(), current -> {
+            current.setIdToken(tokens.getIdToken());
+            current.setAccessToken(tokens.getAccessToken());
+            return current;
+        });
+    }
+
     private void validate(GetTokensByCodeParams params) {
         if (Strings.isNullOrEmpty(params.getCode())) {
             throw new HttpException(ErrorResponseCode.BAD_REQUEST_NO_CODE);
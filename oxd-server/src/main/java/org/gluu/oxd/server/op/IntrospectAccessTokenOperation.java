@@ -9,6 +9,7 @@ import org.gluu.oxd.common.params.IntrospectAccessTokenParams;
 import org.gluu.oxd.common.response.IOpResponse;
 import org.gluu.oxd.common.response.POJOResponse;
 import org.gluu.oxd.server.service.IntrospectionService;
+import org.gluu.oxd.server.service.Rp;
 
 /**
  * @author yuriyz
@@ -32,6 +33,16 @@ public class IntrospectAccessTokenOperation extends BaseOperation<IntrospectAcce
         getValidationService().validate(params);
 
         final IntrospectionService introspectionService = getInstance(IntrospectionService.class);
+
+        final Rp rp = getRp();
+        final Boolean validateLocally = getConfigurationService().get().getValidateJwtAccessTokenLocally();
+        if (validateLocally != null && validateLocally && rp.getAccessTokenAsJwt() != null && rp.getAccessTokenAsJwt()) {
+            final IntrospectionResponse localResponse = introspectionService.introspectJwtTokenLocally(rp, params.getAccessToken());
+            if (localResponse != null) {
+                return new POJOResponse(localResponse);
+            }
+        }
+
         IntrospectionResponse response = introspectionService.introspectToken(params.getOxdId(), params.getAccessToken());
 
         return new POJOResponse(response);
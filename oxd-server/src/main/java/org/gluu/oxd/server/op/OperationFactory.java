@@ -56,6 +56,8 @@ public class OperationFactory {
                     return new RsModifyOperation(command, injector);
                 case RS_CHECK_ACCESS:
                     return new RsCheckAccessOperation(command, injector);
+                case RS_CHECK_ACCESS_BATCH:
+                    return new RsCheckAccessBatchOperation(command, injector);
                 case RP_GET_RPT:
                     return new RpGetRptOperation(command, injector);
                 case RP_GET_CLAIMS_GATHERING_URL:
@@ -40,6 +40,7 @@ public class RpGetRptOperation extends BaseOperation<RpGetRptParams> {
     public IOpResponse execute(RpGetRptParams params) throws Exception {
         try {
             validate(params);
+            getPermissionTicketCache().invalidateTicket(params.getTicket()); // ticket is single use
             return getUmaTokenService().getRpt(params);
         } catch (ClientResponseFailure ex) {
             LOG.trace(ex.getMessage(), ex);
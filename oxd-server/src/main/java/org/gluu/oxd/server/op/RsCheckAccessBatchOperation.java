@@ -0,0 +1,149 @@
+package org.gluu.oxd.server.op;
+
+import com.google.inject.Injector;
+import org.gluu.oxauth.client.uma.UmaPermissionService;
+import org.gluu.oxauth.model.uma.PermissionTicket;
+import org.gluu.oxauth.model.uma.UmaMetadata;
+import org.gluu.oxauth.model.uma.UmaPermission;
+import org.gluu.oxauth.model.uma.UmaPermissionList;
+import org.gluu.oxd.common.Command;
+import org.gluu.oxd.common.ErrorResponseCode;
+import org.gluu.oxd.common.introspection.CorrectRptIntrospectionResponse;
+import org.gluu.oxd.common.params.RsCheckAccessBatchItem;
+import org.gluu.oxd.common.params.RsCheckAccessBatchParams;
+import org.gluu.oxd.common.response.IOpResponse;
+import org.gluu.oxd.common.response.RsCheckAccessBatchResponse;
+import org.gluu.oxd.common.response.RsCheckAccessResponse;
+import org.gluu.oxd.server.HttpException;
+import org.gluu.oxd.server.model.UmaResource;
+import org.gluu.oxd.server.service.PermissionTicketCache;
+import org.gluu.oxd.server.service.Rp;
+import org.jboss.resteasy.client.ClientResponseFailure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks access to several resources with one RPT: RPT is introspected once, each resource is evaluated against
+ * RPT permissions and single ticket is registered for all denied resources.
+ */
+
+public class RsCheckAccessBatchOperation extends BaseOperation<RsCheckAccessBatchParams> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RsCheckAccessBatchOperation.class);
+
+    RsCheckAccessBatchOperation(Command command, final Injector injector) {
+        super(command, injector, RsCheckAccessBatchParams.class);
+    }
+
+    @Override
+    public IOpResponse execute(final RsCheckAccessBatchParams params) throws Exception {
+        validate(params);
+
+        final Rp rp = getRp();
+        final List<UmaResource> resources = new ArrayList<>();
+        for (RsCheckAccessBatchItem item : params.getResources()) {
+            resources.add(RsCheckAccessOperation.findResource(rp, item.getPath(), item.getHttpMethod()));
+        }
+
+        final CorrectRptIntrospectionResponse status = RsCheckAccessOperation.introspectRpt(this, rp, params.getOxdId(), params.getRpt());
+        LOG.trace("RPT: " + params.getRpt() + ", status: " + status);
+
+        final RsCheckAccessBatchResponse response = new RsCheckAccessBatchResponse();
+        final List<RsCheckAccessResponse> denied = new ArrayList<>();
+        final Map<String, List<String>> deniedScopes = new LinkedHashMap<>(); // resource id -> ticket scopes
+        for (UmaResource resource : resources) {
+            if (RsCheckAccessOperation.isGranted(resource, params.getRpt(), status)) {
+                response.getResults().add(new RsCheckAccessResponse("granted"));
+            } else {
+                final RsCheckAccessResponse result = new RsCheckAccessResponse("denied");
+                response.getResults().add(result);
+                denied.add(result);
+                deniedScopes.put(resource.getId(), RsCheckAccessOperation.ticketScopes(resource));
+            }
+        }
+
+        if (denied.isEmpty()) {
+            LOG.debug("RPT has enough permissions, access GRANTED to all resources: " + params.getResources() + ", site: " + rp);
+            response.setAccess("granted");
+            return response;
+        }
+
+        final RsCheckAccessResponse ticket = registerTicket(rp, params.getOxdId(), deniedScopes);
+        response.setAccess("denied");
+        response.setTicket(ticket.getTicket());
+        response.setWwwAuthenticateHeader(ticket.getWwwAuthenticateHeader());
+        for (RsCheckAccessResponse result : denied) {
+            result.setTicket(ticket.getTicket());
+            result.setWwwAuthenticateHeader(ticket.getWwwAuthenticateHeader());
+        }
+        LOG.debug("Access denied for " + denied.size() + " of " + resources.size() + " resources. Ticket: " + ticket);
+        return response;
+    }
+
+    private RsCheckAccessResponse registerTicket(Rp rp, String oxdId, Map<String, List<String>> scopesByResourceId) {
+        final String ticketKey = PermissionTicketCache.key(oxdId, scopesByResourceId);
+        final RsCheckAccessResponse cached = getPermissionTicketCache().get(ticketKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        final UmaPermissionList permissions = new UmaPermissionList();
+        for (Map.Entry<String, List<String>> entry : scopesByResourceId.entrySet()) {
+            final UmaPermission permission = new UmaPermission();
+            permission.setResourceId(entry.getKey());
+            permission.setScopes(entry.getValue());
+            permissions.add(permission);
+        }
+
+        final UmaMetadata discovery = getDiscoveryService().getUmaDiscoveryByOxdId(oxdId);
+        final UmaPermissionService permissionService = getOpClientFactory().createUmaClientFactory().createPermissionService(discovery, getHttpService().getClientExecutor());
+
+        PermissionTicket ticket;
+        String pat = null;
+        try {
+            LOG.trace("Try to register ticket, permissions: " + permissions);
+            pat = getUmaTokenService().getPat(oxdId).getToken();
+            ticket = permissionService.registerPermission("Bearer " + pat, permissions);
+        } catch (ClientResponseFailure e) {
+            LOG.debug("Failed to register ticket. Entity: " + e.getResponse().getEntity(String.class) + ", status: " + e.getResponse().getStatus(), e);
+            if (e.getResponse().getStatus() == 400 || e.getResponse().getStatus() == 401) {
+                LOG.debug("Try maybe PAT is lost on AS, force refresh PAT and request ticket again ...");
+                ticket = permissionService.registerPermission("Bearer " + getUmaTokenService().renewPat(oxdId, pat).getToken(), permissions); // force to refresh PAT
+            } else {
+                throw e;
+            }
+        }
+
+        final RsCheckAccessResponse result = deniedResponse(rp.getOpHost(), ticket.getTicket());
+        getPermissionTicketCache().put(ticketKey, result);
+        return result;
+    }
+
+    private void validate(RsCheckAccessBatchParams params) {
+        if (params.getResources() == null || params.getResources().isEmpty()) {
+            throw new HttpException(ErrorResponseCode.INVALID_REQUEST);
+        }
+        for (RsCheckAccessBatchItem item : params.getResources()) {
+            if (item == null) {
+                throw new HttpException(ErrorResponseCode.INVALID_REQUEST);
+            }
+            RsCheckAccessOperation.validate(item.getPath(), item.getHttpMethod());
+        }
+    }
+
+    /**
+     * Denied response with ticket registered via permission endpoint. There is no RptPreProcessInterceptor response here,
+     * so WWW-Authenticate header is built in the same format as the interceptor produces for uma_rs_check_access.
+     */
+    private static RsCheckAccessResponse deniedResponse(String opHost, String ticket) {
+        RsCheckAccessResponse response = new RsCheckAccessResponse("denied");
+        response.setTicket(ticket);
+        response.setWwwAuthenticateHeader("UMA realm=\"rs\", as_uri=\"" + opHost + "\", error=\"insufficient_scope\", ticket=\"" + ticket + "\"");
+        return response;
+    }
+}
@@ -6,7 +6,6 @@ import org.gluu.oxd.common.*;
 import org.jboss.resteasy.client.ClientResponseFailure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.gluu.oxauth.model.uma.JsonLogicNodeParser;
 import org.gluu.oxauth.model.uma.PermissionTicket;
 import org.gluu.oxd.common.introspection.CorrectRptIntrospectionResponse;
 import org.gluu.oxd.common.introspection.CorrectUmaPermission;
@@ -18,14 +17,18 @@ import org.gluu.oxd.rs.protect.resteasy.ResourceRegistrar;
 import org.gluu.oxd.rs.protect.resteasy.RptPreProcessInterceptor;
 import org.gluu.oxd.rs.protect.resteasy.ServiceProvider;
 import org.gluu.oxd.server.HttpException;
+import org.gluu.oxd.server.model.CompiledScopeExpression;
 import org.gluu.oxd.server.model.UmaResource;
+import org.gluu.oxd.server.service.PermissionTicketCache;
 import org.gluu.oxd.server.service.Rp;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -47,26 +50,17 @@ public class RsCheckAccessOperation extends BaseOperation<RsCheckAccessParams> {
 
     @Override
     public IOpResponse execute(final RsCheckAccessParams params) throws Exception {
-        validate(params);
+        validate(params.getPath(), params.getHttpMethod());
 
         Rp rp = getRp();
-        UmaResource resource = rp.umaResource(params.getPath(), params.getHttpMethod());
-        if (resource == null) {
-            final ErrorResponse error = new ErrorResponse("invalid_request");
-            error.setErrorDescription("Resource is not protected with path: " + params.getPath() + " and httpMethod: " + params.getHttpMethod() +
-                    ". Please protect your resource first with uma_rs_protect command. Check details on " + CoreUtils.DOC_URL);
-            LOG.error(error.getErrorDescription());
-            throw new WebApplicationException(Response
-                    .status(Response.Status.BAD_REQUEST)
-                    .type(MediaType.APPLICATION_JSON_TYPE)
-                    .entity(Jackson2.asJson(error))
-                    .build());
-        }
+        UmaResource resource = findResource(rp, params.getPath(), params.getHttpMethod());
 
+        final AtomicReference<String> usedPat = new AtomicReference<>();
         PatProvider patProvider = new PatProvider() {
             @Override
             public String getPatToken() {
-                return getUmaTokenService().getPat(params.getOxdId()).getToken();
+                usedPat.set(getUmaTokenService().getPat(params.getOxdId()).getToken());
+                return usedPat.get();
             }
 
             @Override
@@ -75,38 +69,22 @@ public class RsCheckAccessOperation extends BaseOperation<RsCheckAccessParams> {
             }
         };
 
-        CorrectRptIntrospectionResponse status = getIntrospectionService().introspectRpt(params.getOxdId(), params.getRpt());
+        CorrectRptIntrospectionResponse status = introspectRpt(this, rp, params.getOxdId(), params.getRpt());
 
         LOG.trace("RPT: " + params.getRpt() + ", status: " + status);
 
-        if (!Strings.isNullOrEmpty(params.getRpt()) && status != null && status.getActive() && status.getPermissions() != null) {
-            for (CorrectUmaPermission permission : status.getPermissions()) {
-                List<String> requiredScopes = resource.getScopes();
-
-                if (requiredScopes.isEmpty()) {
-                    LOG.trace("Not scopes in resource:" + resource + ", oxdId: " + params.getOxdId());
-                    if (!resource.getScopeExpressions().isEmpty() && JsonLogicNodeParser.isNodeValid(resource.getScopeExpressions().get(0))) {
-                        requiredScopes = JsonLogicNodeParser.parseNode(resource.getScopeExpressions().get(0)).getData();
-                        LOG.trace("Set requiredScope from scope expression.");
-                    }
-                }
-
-                boolean containsAny = !Collections.disjoint(requiredScopes, permission.getScopes());
-
-                LOG.trace("containsAny: " + containsAny + ", requiredScopes: " + requiredScopes + ", permissionScopes: " + permission.getScopes());
-
-                if (containsAny) {
-                    if ((permission.getResourceId() != null && permission.getResourceId().equals(resource.getId()))) { // normal UMA
-                        LOG.debug("RPT has enough permissions, access GRANTED. Path: " + params.getPath() + ", httpMethod:" + params.getHttpMethod() + ", site: " + rp);
-                        return new RsCheckAccessResponse("granted");
-                    }
-                }
-            }
+        if (isGranted(resource, params.getRpt(), status)) {
+            LOG.debug("RPT has enough permissions, access GRANTED. Path: " + params.getPath() + ", httpMethod:" + params.getHttpMethod() + ", site: " + rp);
+            return new RsCheckAccessResponse("granted");
         }
 
-        List<String> scopes = resource.getTicketScopes();
-        if (scopes.isEmpty()) {
-            scopes = resource.getScopes();
+        List<String> scopes = ticketScopes(resource);
+
+        final String ticketKey = PermissionTicketCache.key(params.getOxdId(), resource.getId(), scopes);
+        final RsCheckAccessResponse cachedResponse = getPermissionTicketCache().get(ticketKey);
+        if (cachedResponse != null) {
+            LOG.debug("Access denied for path: " + params.getPath() + " and httpMethod: " + params.getHttpMethod() + ". Re-used ticket: " + cachedResponse);
+            return cachedResponse;
         }
 
         final RptPreProcessInterceptor rptInterceptor = getOpClientFactory().createRptPreProcessInterceptor(new ResourceRegistrar(patProvider, new ServiceProvider(rp.getOpHost())));
@@ -118,7 +96,7 @@ public class RsCheckAccessOperation extends BaseOperation<RsCheckAccessParams> {
             LOG.debug("Failed to register ticket. Entity: " + e.getResponse().getEntity(String.class) + ", status: " + e.getResponse().getStatus(), e);
             if (e.getResponse().getStatus() == 400 || e.getResponse().getStatus() == 401) {
                 LOG.debug("Try maybe PAT is lost on AS, force refresh PAT and request ticket again ...");
-                getUmaTokenService().obtainPat(params.getOxdId()); // force to refresh PAT
+                getUmaTokenService().renewPat(params.getOxdId(), usedPat.get()); // force to refresh PAT (shared with concurrent requests)
                 response = rptInterceptor.registerTicketResponse(scopes, resource.getId());
             } else {
                 throw e;
@@ -129,15 +107,82 @@ public class RsCheckAccessOperation extends BaseOperation<RsCheckAccessParams> {
         opResponse.setWwwAuthenticateHeader((String) response.getMetadata().getFirst("WWW-Authenticate"));
         opResponse.setTicket(((PermissionTicket) response.getEntity()).getTicket());
         LOG.debug("Access denied for path: " + params.getPath() + " and httpMethod: " + params.getHttpMethod() + ". Ticket is registered: " + opResponse);
+        getPermissionTicketCache().put(ticketKey, opResponse);
 
         return opResponse;
     }
 
-    private void validate(RsCheckAccessParams params) {
-        if (Strings.isNullOrEmpty(params.getHttpMethod())) {
+    static UmaResource findResource(Rp rp, String path, String httpMethod) throws IOException {
+        UmaResource resource = rp.umaResource(path, httpMethod);
+        if (resource == null) {
+            final ErrorResponse error = new ErrorResponse("invalid_request");
+            error.setErrorDescription("Resource is not protected with path: " + path + " and httpMethod: " + httpMethod +
+                    ". Please protect your resource first with uma_rs_protect command. Check details on " + CoreUtils.DOC_URL);
+            LOG.error(error.getErrorDescription());
+            throw new WebApplicationException(Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .entity(Jackson2.asJson(error))
+                    .build());
+        }
+        return resource;
+    }
+
+    static boolean isGranted(UmaResource resource, String rpt, CorrectRptIntrospectionResponse status) {
+        if (Strings.isNullOrEmpty(rpt) || status == null || !status.getActive() || status.getPermissions() == null) {
+            return false;
+        }
+
+        final List<String> requiredScopes = resource.getScopes();
+        final CompiledScopeExpression scopeExpression = requiredScopes.isEmpty() ? resource.compiledScopeExpression() : null;
+        if (requiredScopes.isEmpty()) {
+            LOG.trace("Not scopes in resource:" + resource + ", scope expression: " + scopeExpression);
+            if (scopeExpression == null && !resource.getScopeExpressions().isEmpty()) {
+                LOG.error("Scope expression of resource can't be compiled, access is denied. Please protect resource again with supported scope expression (and, or, var), resource: " + resource);
+                return false;
+            }
+        }
+
+        for (CorrectUmaPermission permission : status.getPermissions()) {
+            final boolean hasScopes = scopeExpression != null ?
+                    scopeExpression.evaluate(permission.getScopes()) :
+                    !Collections.disjoint(requiredScopes, permission.getScopes());
+
+            LOG.trace("hasScopes: " + hasScopes + ", requiredScopes: " + requiredScopes + ", permissionScopes: " + permission.getScopes());
+
+            if (hasScopes) {
+                if ((permission.getResourceId() != null && permission.getResourceId().equals(resource.getId()))) { // normal UMA
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static List<String> ticketScopes(UmaResource resource) {
+        List<String> scopes = resource.getTicketScopes();
+        if (scopes.isEmpty()) {
+            scopes = resource.getScopes();
+        }
+        return scopes;
+    }
+
+    static CorrectRptIntrospectionResponse introspectRpt(BaseOperation<?> operation, Rp rp, String oxdId, String rpt) {
+        final Boolean validateLocally = operation.getConfigurationService().get().getValidateJwtRptLocally();
+        if (validateLocally != null && validateLocally && rp.getRptAsJwt() != null && rp.getRptAsJwt() && !Strings.isNullOrEmpty(rpt)) {
+            final CorrectRptIntrospectionResponse localStatus = operation.getIntrospectionService().introspectRptLocally(rp, rpt);
+            if (localStatus != null) {
+                return localStatus;
+            }
+        }
+        return operation.getIntrospectionService().introspectRpt(oxdId, rpt);
+    }
+
+    static void validate(String path, String httpMethod) {
+        if (Strings.isNullOrEmpty(httpMethod)) {
             throw new HttpException(ErrorResponseCode.NO_UMA_HTTP_METHOD);
         }
-        if (Strings.isNullOrEmpty(params.getPath())) {
+        if (Strings.isNullOrEmpty(path)) {
             throw new HttpException(ErrorResponseCode.NO_UMA_PATH_PARAMETER);
         }
     }
@@ -77,14 +77,15 @@ public class RsModifyOperation extends BaseOperation<RsModifyParams> {
 
         UmaResource opUmaResource = getResource(resourceService, params, umaResource.getId());
 
+        String pat = null;
         try {
-            String pat = getUmaTokenService().getPat(params.getOxdId()).getToken();
+            pat = getUmaTokenService().getPat(params.getOxdId()).getToken();
             return update(pat, umaResource.getId(), rp, resourceService, opUmaResource);
         } catch (ClientResponseFailure e) {
             LOG.debug("Failed to update resource. Entity: " + e.getResponse().getEntity(String.class) + ", status: " + e.getResponse().getStatus(), e);
             if (e.getResponse().getStatus() == 400 || e.getResponse().getStatus() == 401) {
                 LOG.debug("Try maybe PAT is lost on AS, force refresh PAT and re-try ...");
-                return update(getUmaTokenService().obtainPat(params.getOxdId()).getToken(), umaResource.getId(), rp, resourceService, opUmaResource);
+                return update(getUmaTokenService().renewPat(params.getOxdId(), pat).getToken(), umaResource.getId(), rp, resourceService, opUmaResource);
             } else {
                 throw e;
             }
@@ -119,10 +120,12 @@ public class RsModifyOperation extends BaseOperation<RsModifyParams> {
     }
 
     private void updateRp(UmaResource opUmaResource, Rp rp, String resourceId) {
-        List<org.gluu.oxd.server.model.UmaResource> umaResourceList = rp.getUmaProtectedResources();
-
-        rp.setUmaProtectedResources(umaResourceList.stream().map(res -> {
-            if (res.getId().equals(resourceId)) {
+        getRpService().update(rp.getOxdId(), current -> {
+            current.setUmaProtectedResources(current.getUmaProtectedResources().stream().map(existing -> {
+                if (!existing.getId().equals(resourceId)) {
+                    return existing;
+                }
+                final org.gluu.oxd.server.model.UmaResource res = new org.gluu.oxd.server.model.UmaResource(existing); // snapshot is not modified in place
                 res.setScopes(opUmaResource.getScopes());
                 res.setTicketScopes(opUmaResource.getScopes());
                 res.setScopeExpressions(null);
@@ -131,11 +134,11 @@ public class RsModifyOperation extends BaseOperation<RsModifyParams> {
                     res.setTicketScopes(JsonLogicNodeParser.parseNode(opUmaResource.getScopeExpression().toString()).getData());
                     res.setScopes(null);
                 }
-            }
-            return res;
-        }).collect(Collectors.toList()));
-
-        getRpService().update(rp);
+                return res;
+            }).collect(Collectors.toList()));
+            current.rebuildUmaResourceIndex();
+            return current;
+        });
     }
 
     private void validate(RsModifyParams params) {
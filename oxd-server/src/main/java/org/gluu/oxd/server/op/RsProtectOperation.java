@@ -1,6 +1,7 @@
 package org.gluu.oxd.server.op;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.inject.Injector;
@@ -24,16 +25,24 @@ import org.gluu.oxd.rs.protect.resteasy.PatProvider;
 import org.gluu.oxd.rs.protect.resteasy.ResourceRegistrar;
 import org.gluu.oxd.rs.protect.resteasy.ServiceProvider;
 import org.gluu.oxd.server.HttpException;
+import org.gluu.oxd.server.model.CompiledScopeExpression;
 import org.gluu.oxd.server.model.UmaResource;
+import org.gluu.oxd.server.service.OpRequestExecutor;
 import org.gluu.oxd.server.service.Rp;
 import org.jboss.resteasy.client.ClientResponseFailure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -53,8 +62,10 @@ public class RsProtectOperation extends BaseOperation<RsProtectParams> {
         validate(params);
 
         Rp rp = getRp();
+        final Map<String, String> errors = new LinkedHashMap<>();
+        removeExistingResources(params, rp, errors);
 
-        PatProvider patProvider = new PatProvider() {
+        final PatProvider patProvider = new PatProvider() {
             @Override
             public String getPatToken() {
                 return getUmaTokenService().getPat(params.getOxdId()).getToken();
@@ -65,30 +76,86 @@ public class RsProtectOperation extends BaseOperation<RsProtectParams> {
                 // do nothing
             }
         };
+        final ServiceProvider serviceProvider = new ServiceProvider(rp.getOpHost());
 
-        ResourceRegistrar registrar = getOpClientFactory().createResourceRegistrar(patProvider, new ServiceProvider(rp.getOpHost()));
+        // each resource is registered by own registrar, so registrations are independent and can run in parallel
+        final List<Callable<ResourceRegistrar>> tasks = new ArrayList<>();
+        for (final RsResource resource : params.getResources()) {
+            tasks.add(new Callable<ResourceRegistrar>() {
+                @Override
+                public ResourceRegistrar call() {
+                    return register(params.getOxdId(), getOpClientFactory().createResourceRegistrar(patProvider, serviceProvider), resource);
+                }
+            });
+        }
+
+        final List<OpRequestExecutor.Result<ResourceRegistrar>> results = getOpRequestExecutor().invokeAll(rp.getOpHost(), tasks);
+        final List<ResourceRegistrar> registrars = new ArrayList<>();
+        Throwable firstError = null;
+        for (int i = 0; i < results.size(); i++) {
+            final OpRequestExecutor.Result<ResourceRegistrar> result = results.get(i);
+            if (result.isSuccess()) {
+                registrars.add(result.getValue());
+            } else {
+                firstError = firstError != null ? firstError : result.getError();
+                errors.put(params.getResources().get(i).getPath(), errorMessage(result.getError()));
+            }
+        }
+
+        if (registrars.isEmpty()) {
+            LOG.error("Failed to register all resources, errors: " + errors);
+            Throwables.propagateIfPossible(firstError, Exception.class);
+            throw new RuntimeException(firstError);
+        }
+
+        persist(registrars, rp);
+
+        if (!errors.isEmpty()) {
+            LOG.error("Failed to protect some of resources, errors: " + errors);
+        }
+        final RsProtectResponse response = new RsProtectResponse(rp.getOxdId());
+        response.setErrors(errors);
+        return response;
+    }
+
+    private ResourceRegistrar register(String oxdId, ResourceRegistrar registrar, RsResource resource) {
+        final List<RsResource> resources = Collections.singletonList(resource);
+        final String pat = getUmaTokenService().getPat(oxdId).getToken(); // same PAT is returned by PatProvider
         try {
-            registrar.register(params.getResources());
+            registrar.register(resources);
         } catch (ClientResponseFailure e) {
             LOG.debug("Failed to register resource. Entity: " + e.getResponse().getEntity(String.class) + ", status: " + e.getResponse().getStatus(), e);
             if (e.getResponse().getStatus() == 400 || e.getResponse().getStatus() == 401) {
                 LOG.debug("Try maybe PAT is lost on AS, force refresh PAT and re-try ...");
-                getUmaTokenService().obtainPat(params.getOxdId()); // force to refresh PAT
-                registrar.register(params.getResources());
+                getUmaTokenService().renewPat(oxdId, pat); // force to refresh PAT (shared with concurrent registrations)
+                registrar.register(resources);
             } else {
                 throw e;
             }
         }
+        return registrar;
+    }
 
-        persist(registrar, rp);
-
-        return new RsProtectResponse(rp.getOxdId());
+    private static String errorMessage(Throwable e) {
+        if (e instanceof ClientResponseFailure) {
+            return "AS responded with status " + ((ClientResponseFailure) e).getResponse().getStatus();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
     }
 
-    private void persist(ResourceRegistrar registrar, Rp rp) throws IOException {
-        Map<Key, RsResource> resourceMapCopy = registrar.getResourceMapCopy();
+    private void persist(List<ResourceRegistrar> registrars, Rp rp) throws IOException {
+        final Map<Key, RsResource> resourceMapCopy = new HashMap<>();
+        final Map<Key, String> idMapCopy = new LinkedHashMap<>();
+        for (ResourceRegistrar registrar : registrars) {
+            resourceMapCopy.putAll(registrar.getResourceMapCopy());
+            idMapCopy.putAll(registrar.getIdMapCopy());
+        }
+        persist(resourceMapCopy, idMapCopy, rp);
+    }
 
-        for (Map.Entry<Key, String> entry : registrar.getIdMapCopy().entrySet()) {
+    private void persist(Map<Key, RsResource> resourceMapCopy, Map<Key, String> idMapCopy, Rp rp) throws IOException {
+        final List<UmaResource> resources = new ArrayList<>();
+        for (Map.Entry<Key, String> entry : idMapCopy.entrySet()) {
             UmaResource resource = new UmaResource();
             resource.setId(entry.getValue());
             resource.setPath(entry.getKey().getPath());
@@ -117,10 +184,14 @@ public class RsProtectOperation extends BaseOperation<RsProtectParams> {
             resource.setTicketScopes(Lists.newArrayList(scopesForTicket));
             resource.setScopeExpressions(Lists.newArrayList(scopeExpressions));
 
-            rp.getUmaProtectedResources().add(resource);
+            resources.add(resource);
         }
 
-        getRpService().update(rp);
+        getRpService().update(rp.getOxdId(), current -> {
+            current.getUmaProtectedResources().addAll(resources);
+            current.rebuildUmaResourceIndex();
+            return current;
+        });
     }
 
     private void validate(RsProtectParams params) {
@@ -150,29 +221,82 @@ public class RsProtectOperation extends BaseOperation<RsProtectParams> {
             }
         }
 
-        Rp rp = getRp();
-        List<UmaResource> existingUmaResources = rp.getUmaProtectedResources();
-        if (existingUmaResources != null && !existingUmaResources.isEmpty()) {
-            if (params.getOverwrite() == null || !params.getOverwrite()) {
-                throw new HttpException(ErrorResponseCode.UMA_PROTECTION_FAILED_BECAUSE_RESOURCES_ALREADY_EXISTS);
-            } else {
-                // remove existing resources, overwrite=true
-                UmaMetadata discovery = getDiscoveryService().getUmaDiscoveryByOxdId(params.getOxdId());
-                UmaResourceService resourceService = UmaClientFactory.instance().createResourceService(discovery, getHttpService().getClientExecutor());
-                String pat = getUmaTokenService().getPat(params.getOxdId()).getToken();
+        List<UmaResource> existingUmaResources = getRp().getUmaProtectedResources();
+        if (existingUmaResources != null && !existingUmaResources.isEmpty() && (params.getOverwrite() == null || !params.getOverwrite())) {
+            throw new HttpException(ErrorResponseCode.UMA_PROTECTION_FAILED_BECAUSE_RESOURCES_ALREADY_EXISTS);
+        }
+    }
 
-                for (UmaResource resource : existingUmaResources) {
+    /**
+     * Removes existing resources if overwrite=true. Resources are removed from AS in parallel, failed removals are
+     * reported in errors (keyed by resource id) and such resources are kept in RP.
+     */
+    private void removeExistingResources(RsProtectParams params, Rp rp, Map<String, String> errors) throws Exception {
+        final List<UmaResource> existingUmaResources = rp.getUmaProtectedResources();
+        if (existingUmaResources == null || existingUmaResources.isEmpty()) {
+            return;
+        }
+
+        UmaMetadata discovery = getDiscoveryService().getUmaDiscoveryByOxdId(params.getOxdId());
+        final UmaResourceService resourceService = UmaClientFactory.instance().createResourceService(discovery, getHttpService().getClientExecutor());
+        final String pat = getUmaTokenService().getPat(params.getOxdId()).getToken();
+
+        final List<Callable<String>> tasks = new ArrayList<>();
+        for (final UmaResource resource : existingUmaResources) {
+            tasks.add(new Callable<String>() {
+                @Override
+                public String call() {
                     LOG.trace("Removing existing resource " + resource.getId() + " ...");
                     resourceService.deleteResource("Bearer " + pat, resource.getId());
                     LOG.trace("Removed existing resource " + resource.getId() + ".");
+                    return resource.getId();
                 }
-                rp.getUmaProtectedResources().clear();
-                getRpService().updateSilently(rp);
+            });
+        }
+
+        final List<OpRequestExecutor.Result<String>> results = getOpRequestExecutor().invokeAll(rp.getOpHost(), tasks);
+        final Set<String> removedIds = removedResourceIds(existingUmaResources, results, errors);
+        if (removedIds.isEmpty()) {
+            return;
+        }
+        getRpService().updateSilently(rp.getOxdId(), current -> {
+            current.getUmaProtectedResources().removeIf(resource -> removedIds.contains(resource.getId()));
+            current.rebuildUmaResourceIndex();
+            return current;
+        });
+    }
+
+    /**
+     * @return ids of resources which are removed from AS. Resources which failed to be removed are reported in errors
+     * and must stay in RP (they still exist on AS, so they can be removed by next overwrite).
+     */
+    static Set<String> removedResourceIds(List<UmaResource> resources, List<OpRequestExecutor.Result<String>> results, Map<String, String> errors) {
+        final Set<String> removedIds = new HashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isSuccess()) {
+                removedIds.add(resources.get(i).getId());
+            } else {
+                errors.put(resources.get(i).getId(), "Failed to remove existing resource: " + errorMessage(results.get(i).getError()));
             }
         }
+        return removedIds;
     }
 
+    /**
+     * Expression must be valid JsonLogic (result must be one of data scopes) and must be compilable by
+     * {@link CompiledScopeExpression} (and, or, var), otherwise uma_rs_check_access could not evaluate it.
+     */
     public static void validateScopeExpression(String scopeExpression) {
+        validateScopeExpressionWithJsonLogic(scopeExpression);
+        try {
+            CompiledScopeExpression.compile(scopeExpression);
+        } catch (IllegalArgumentException e) {
+            LOG.trace("Scope expression is not supported: " + e.getMessage());
+            throw new HttpException(ErrorResponseCode.UMA_FAILED_TO_VALIDATE_SCOPE_EXPRESSION);
+        }
+    }
+
+    private static void validateScopeExpressionWithJsonLogic(String scopeExpression) {
         JsonLogicNode jsonLogicNode = JsonLogicNodeParser.parseNode(scopeExpression);
         try {
             Object scope = JsonLogic.applyObject(jsonLogicNode.getRule().toString(), Util.asJsonSilently(jsonLogicNode.getData()));
@@ -68,10 +68,12 @@ public class UpdateSiteOperation extends BaseOperation<UpdateSiteParams> {
         try {
             RegisterRequest registerRequest = createRegisterClientRequest(rp, params);
             updateRegisteredClient(rp, registerRequest);
-            RegisterRequestMapper.fillRp(rp, registerRequest);
-            getRpService().update(rp);
+            final Rp updated = getRpService().update(rp.getOxdId(), current -> {
+                RegisterRequestMapper.fillRp(current, registerRequest);
+                return current;
+            });
 
-            LOG.info("RP updated: " + rp);
+            LOG.info("RP updated: " + updated);
         } catch (Exception e) {
             throw new RuntimeException("Failed to persist RP, params: " + params, e);
         }
@@ -3,7 +3,6 @@ package org.gluu.oxd.server.op;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
-import org.gluu.oxauth.client.JwkClient;
 import org.gluu.oxauth.client.OpenIdConfigurationResponse;
 import org.gluu.oxauth.model.crypto.signature.AlgorithmFamily;
 import org.gluu.oxauth.model.crypto.signature.ECDSAPublicKey;
@@ -154,7 +153,7 @@ public class Validator {
         } else if (signatureAlgorithm.getFamily() == AlgorithmFamily.HMAC) {
             return new HMACSigner(signatureAlgorithm, rp.getClientSecret());
         } else if (signatureAlgorithm.getFamily() == AlgorithmFamily.EC) {
-            ECDSAPublicKey publicKey = JwkClient.getECDSAPublicKey(jwkUrl, kid);
+            final ECDSAPublicKey publicKey = keyService.getECDSAPublicKey(jwkUrl, kid);
             return new ECDSASigner(signatureAlgorithm, publicKey);
         }
         throw new HttpException(ErrorResponseCode.ALGORITHM_NOT_SUPPORTED);
@@ -1,8 +1,11 @@
 package org.gluu.oxd.server.persistence;
 
 import org.gluu.oxd.common.ExpiredObject;
+import org.gluu.oxd.server.model.OpSnapshot;
+import org.gluu.oxd.server.model.RpToken;
 import org.gluu.oxd.server.service.Rp;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,4 +39,40 @@ public interface PersistenceService {
     boolean deleteExpiredObjectsByKey(String key);
 
     boolean deleteAllExpiredObjects();
+
+    boolean putOpSnapshot(OpSnapshot snapshot);
+
+    Set<OpSnapshot> getOpSnapshots();
+
+    /**
+     * Puts value which is shared between oxd nodes. Supported only by storages which can expire entries (redis),
+     * other storages ignore it and return false.
+     */
+    boolean putCacheEntry(String key, String value, int expirationInSeconds);
+
+    String getCacheEntry(String key);
+
+    /**
+     * @param clientId normalized (lower case) client_id
+     */
+    boolean putClientIdIndex(String clientId, String oxdId);
+
+    boolean removeClientIdIndex(String clientId);
+
+    String getOxdIdByClientId(String clientId);
+
+    /**
+     * Replaces whole client_id to oxd_id index (e.g. at startup).
+     */
+    boolean rebuildClientIdIndex(Map<String, String> clientIdToOxdId);
+
+    /**
+     * Puts token state of RP, entry expires together with token.
+     */
+    boolean putRpToken(RpToken token);
+
+    /**
+     * @return not expired token state of RP (removed with RP)
+     */
+    List<RpToken> getRpTokens(String oxdId);
 }
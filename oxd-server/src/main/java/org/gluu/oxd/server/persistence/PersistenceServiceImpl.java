@@ -3,11 +3,15 @@ package org.gluu.oxd.server.persistence;
 import com.google.inject.Inject;
 import org.gluu.oxd.common.CoreUtils;
 import org.gluu.oxd.common.ExpiredObject;
+import org.gluu.oxd.server.model.OpSnapshot;
+import org.gluu.oxd.server.model.RpToken;
 import org.gluu.oxd.server.service.ConfigurationService;
 import org.gluu.oxd.server.service.Rp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -97,6 +101,46 @@ public class PersistenceServiceImpl implements PersistenceService {
         return persistenceService.deleteAllExpiredObjects();
     }
 
+    public boolean putOpSnapshot(OpSnapshot snapshot) {
+        return persistenceService.putOpSnapshot(snapshot);
+    }
+
+    public Set<OpSnapshot> getOpSnapshots() {
+        return persistenceService.getOpSnapshots();
+    }
+
+    public boolean putCacheEntry(String key, String value, int expirationInSeconds) {
+        return persistenceService.putCacheEntry(key, value, expirationInSeconds);
+    }
+
+    public String getCacheEntry(String key) {
+        return persistenceService.getCacheEntry(key);
+    }
+
+    public boolean putClientIdIndex(String clientId, String oxdId) {
+        return persistenceService.putClientIdIndex(clientId, oxdId);
+    }
+
+    public boolean removeClientIdIndex(String clientId) {
+        return persistenceService.removeClientIdIndex(clientId);
+    }
+
+    public String getOxdIdByClientId(String clientId) {
+        return persistenceService.getOxdIdByClientId(clientId);
+    }
+
+    public boolean rebuildClientIdIndex(Map<String, String> clientIdToOxdId) {
+        return persistenceService.rebuildClientIdIndex(clientIdToOxdId);
+    }
+
+    public boolean putRpToken(RpToken token) {
+        return persistenceService.putRpToken(token);
+    }
+
+    public List<RpToken> getRpTokens(String oxdId) {
+        return persistenceService.getRpTokens(oxdId);
+    }
+
     public void destroy() {
         persistenceService.destroy();
     }
@@ -7,6 +7,8 @@ import org.gluu.oxd.common.ExpiredObject;
 import org.gluu.oxd.common.ExpiredObjectType;
 import org.gluu.oxd.common.Jackson2;
 import org.gluu.oxd.server.OxdServerConfiguration;
+import org.gluu.oxd.server.model.OpSnapshot;
+import org.gluu.oxd.server.model.RpToken;
 import org.gluu.oxd.server.service.MigrationService;
 import org.gluu.oxd.server.service.Rp;
 import org.gluu.service.cache.AbstractRedisProvider;
@@ -15,8 +17,17 @@ import org.gluu.service.cache.RedisProviderFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import redis.clients.jedis.JedisCommands;
+import redis.clients.util.Pool;
+
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * @author yuriyz
@@ -25,6 +36,12 @@ public class RedisPersistenceService implements PersistenceService {
 
     private static final Logger LOG = LoggerFactory.getLogger(RedisPersistenceService.class);
 
+    private static final String OP_SNAPSHOT_PREFIX = "op_snapshot_";
+    private static final String OP_SNAPSHOT_URL_SET_KEY = OP_SNAPSHOT_PREFIX + "url_set";
+    private static final String CLIENT_ID_PREFIX = "client_id_";
+    private static final String RP_TOKEN_PREFIX = "rp_token_";
+    private static final String RP_OXD_IDS_KEY = "rp_oxd_ids";
+
     private final OxdServerConfiguration configuration;
     private AbstractRedisProvider redisProvider;
 
@@ -51,6 +68,7 @@ public class RedisPersistenceService implements PersistenceService {
     public boolean create(Rp rp) {
         try {
             put(rp.getOxdId(), Jackson2.serializeWithoutNulls(rp));
+            addToSet(RP_OXD_IDS_KEY, rp.getOxdId());
             return true;
         } catch (IOException e) {
             LOG.error("Failed to create RP: " + rp, e);
@@ -80,6 +98,7 @@ public class RedisPersistenceService implements PersistenceService {
     public boolean update(Rp rp) {
         try {
             put(rp.getOxdId(), Jackson2.serializeWithoutNulls(rp));
+            addToSet(RP_OXD_IDS_KEY, rp.getOxdId()); // no-op if already indexed, indexes RPs created before index existed
             return true;
         } catch (IOException e) {
             LOG.error("Failed to create RP: " + rp, e);
@@ -117,12 +136,37 @@ public class RedisPersistenceService implements PersistenceService {
 
     @Override
     public boolean removeAllRps() {
-        return false;
+        try {
+            for (String oxdId : getSet(RP_OXD_IDS_KEY)) {
+                remove(oxdId);
+            }
+            redisProvider.remove(RP_OXD_IDS_KEY);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to remove all RPs.", e);
+            return false;
+        }
     }
 
+    /**
+     * @return RPs listed in oxd_id index (RPs created before index was introduced are indexed on their next update)
+     */
     @Override
     public Set<Rp> getRps() {
-        return Sets.newHashSet();
+        final Set<Rp> result = Sets.newHashSet();
+        try {
+            for (String oxdId : getSet(RP_OXD_IDS_KEY)) {
+                final Rp rp = getRp(oxdId);
+                if (rp != null) {
+                    result.add(rp);
+                } else {
+                    removeFromSet(RP_OXD_IDS_KEY, oxdId); // stale index entry
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to get RPs.", e);
+        }
+        return result;
     }
 
     @Override
@@ -137,6 +181,10 @@ public class RedisPersistenceService implements PersistenceService {
     @Override
     public boolean remove(String oxdId) {
         redisProvider.remove(oxdId);
+        removeFromSet(RP_OXD_IDS_KEY, oxdId);
+        for (RpToken.Type type : RpToken.Type.values()) {
+            redisProvider.remove(rpTokenKey(oxdId, type));
+        }
         return true;
     }
 
@@ -150,6 +198,170 @@ public class RedisPersistenceService implements PersistenceService {
         return true;
     }
 
+    @Override
+    public boolean putOpSnapshot(OpSnapshot snapshot) {
+        try {
+            put(OP_SNAPSHOT_PREFIX + snapshot.getUrl(), Jackson2.serializeWithoutNulls(snapshot));
+            addToSet(OP_SNAPSHOT_URL_SET_KEY, snapshot.getUrl()); // atomic, concurrent writers don't lose urls
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to save OP snapshot: " + snapshot, e);
+            return false;
+        }
+    }
+
+    @Override
+    public Set<OpSnapshot> getOpSnapshots() {
+        final Set<OpSnapshot> result = new HashSet<>();
+        for (String url : getSet(OP_SNAPSHOT_URL_SET_KEY)) {
+            final String value = get(OP_SNAPSHOT_PREFIX + url);
+            if (Strings.isNullOrEmpty(value)) {
+                continue;
+            }
+            try {
+                result.add(Jackson2.createJsonMapper().readValue(value, OpSnapshot.class));
+            } catch (IOException e) {
+                LOG.error("Failed to parse OP snapshot, url: " + url, e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean putCacheEntry(String key, String value, int expirationInSeconds) {
+        try {
+            put(expirationInSeconds, key, value);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to put cache entry: " + key, e);
+            return false;
+        }
+    }
+
+    @Override
+    public String getCacheEntry(String key) {
+        try {
+            return get(key);
+        } catch (Exception e) {
+            LOG.error("Failed to get cache entry: " + key, e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean putClientIdIndex(String clientId, String oxdId) {
+        try {
+            put(CLIENT_ID_PREFIX + clientId, oxdId);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to put client_id index entry, client_id: " + clientId, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean removeClientIdIndex(String clientId) {
+        try {
+            redisProvider.remove(CLIENT_ID_PREFIX + clientId);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to remove client_id index entry, client_id: " + clientId, e);
+            return false;
+        }
+    }
+
+    @Override
+    public String getOxdIdByClientId(String clientId) {
+        try {
+            return get(CLIENT_ID_PREFIX + clientId);
+        } catch (Exception e) {
+            LOG.error("Failed to get client_id index entry, client_id: " + clientId, e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean rebuildClientIdIndex(Map<String, String> clientIdToOxdId) {
+        boolean ok = true;
+        for (Map.Entry<String, String> entry : clientIdToOxdId.entrySet()) { // stale keys are detected and removed on lookup
+            ok &= putClientIdIndex(entry.getKey(), entry.getValue());
+        }
+        return ok;
+    }
+
+    @Override
+    public boolean putRpToken(RpToken token) {
+        try {
+            final String key = rpTokenKey(token.getOxdId(), token.getType());
+            final int expirationInSeconds = token.getExpirationInSeconds();
+            if (expirationInSeconds > 0) {
+                put(expirationInSeconds, key, Jackson2.serializeWithoutNulls(token));
+            } else {
+                put(key, Jackson2.serializeWithoutNulls(token));
+            }
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to put rp token: " + token, e);
+            return false;
+        }
+    }
+
+    @Override
+    public List<RpToken> getRpTokens(String oxdId) {
+        final List<RpToken> result = new ArrayList<>();
+        for (RpToken.Type type : RpToken.Type.values()) {
+            try {
+                final String value = get(rpTokenKey(oxdId, type));
+                if (!Strings.isNullOrEmpty(value)) {
+                    result.add(Jackson2.createJsonMapper().readValue(value, RpToken.class));
+                }
+            } catch (Exception e) {
+                LOG.error("Failed to get rp token, oxdId: " + oxdId + ", type: " + type, e);
+            }
+        }
+        return result;
+    }
+
+    private static String rpTokenKey(String oxdId, RpToken.Type type) {
+        return RP_TOKEN_PREFIX + type.name().toLowerCase() + "_" + oxdId;
+    }
+
+    /**
+     * Executes command against redis. Sets are not supported by AbstractRedisProvider, so underlying jedis is used:
+     * cluster provider delegates to JedisCluster, standalone, sentinel and sharded providers delegate to pool.
+     */
+    private <T> T execute(Function<JedisCommands, T> command) {
+        final Object delegate = redisProvider.getDelegate();
+        if (delegate instanceof JedisCommands) {
+            return command.apply((JedisCommands) delegate);
+        }
+        if (delegate instanceof Pool) {
+            final Object resource = ((Pool<?>) delegate).getResource();
+            try {
+                return command.apply((JedisCommands) resource);
+            } finally {
+                try {
+                    ((Closeable) resource).close(); // returns resource to pool
+                } catch (IOException e) {
+                    LOG.trace("Failed to return redis resource to pool.", e);
+                }
+            }
+        }
+        throw new IllegalStateException("Unsupported redis provider delegate: " + delegate);
+    }
+
+    private void addToSet(String key, String member) {
+        execute(commands -> commands.sadd(key, member));
+    }
+
+    private void removeFromSet(String key, String member) {
+        execute(commands -> commands.srem(key, member));
+    }
+
+    private Set<String> getSet(String key) {
+        final Set<String> members = execute(commands -> commands.smembers(key));
+        return members != null ? members : new HashSet<>();
+    }
 
     private void testConnection() {
         put("testKey", "testValue");
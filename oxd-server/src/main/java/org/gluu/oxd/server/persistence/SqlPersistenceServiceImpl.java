@@ -5,14 +5,20 @@ import com.google.inject.Inject;
 import org.gluu.oxd.common.ExpiredObject;
 import org.gluu.oxd.common.ExpiredObjectType;
 import org.gluu.oxd.common.Jackson2;
+import org.gluu.oxd.server.model.OpSnapshot;
+import org.gluu.oxd.server.model.RpToken;
 import org.gluu.oxd.server.service.MigrationService;
 import org.gluu.oxd.server.service.Rp;
 import org.h2.util.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -45,6 +51,9 @@ public class SqlPersistenceServiceImpl implements PersistenceService {
 
             stmt.addBatch("create table if not exists rp(id varchar(36) primary key, data varchar(65534))");
             stmt.addBatch("create table if not exists expired_objects( key varchar(50), value varchar(65534), type varchar(20), iat TIMESTAMP, exp TIMESTAMP)");
+            stmt.addBatch("create table if not exists op_snapshot(url varchar(1024) primary key, type varchar(20), data clob, created_at TIMESTAMP)");
+            stmt.addBatch("create table if not exists rp_client_id(client_id varchar(1024) primary key, oxd_id varchar(36))");
+            stmt.addBatch("create table if not exists rp_token(oxd_id varchar(36), type varchar(20), data varchar(65534), exp TIMESTAMP, primary key(oxd_id, type))");
 
             stmt.executeBatch();
 
@@ -214,6 +223,14 @@ public class SqlPersistenceServiceImpl implements PersistenceService {
             query.executeUpdate();
             query.close();
 
+            query = conn.prepareStatement("delete from rp_client_id");
+            query.executeUpdate();
+            query.close();
+
+            query = conn.prepareStatement("delete from rp_token");
+            query.executeUpdate();
+            query.close();
+
             conn.commit();
             LOG.debug("All RPs are removed successfully.");
             return true;
@@ -285,6 +302,16 @@ public class SqlPersistenceServiceImpl implements PersistenceService {
             query.executeUpdate();
             query.close();
 
+            query = conn.prepareStatement("delete from rp_client_id where oxd_id = ?");
+            query.setString(1, oxdId);
+            query.executeUpdate();
+            query.close();
+
+            query = conn.prepareStatement("delete from rp_token where oxd_id = ?");
+            query.setString(1, oxdId);
+            query.executeUpdate();
+            query.close();
+
             conn.commit();
             LOG.debug("Removed rp successfully. oxdId: " + oxdId);
             return true;
@@ -330,6 +357,10 @@ public class SqlPersistenceServiceImpl implements PersistenceService {
             query.executeUpdate();
             query.close();
 
+            query = conn.prepareStatement("delete from rp_token where exp < CURRENT_TIMESTAMP()");
+            query.executeUpdate();
+            query.close();
+
             conn.commit();
             LOG.debug("Removed expired_objects successfully. ");
             return true;
@@ -341,4 +372,221 @@ public class SqlPersistenceServiceImpl implements PersistenceService {
             IOUtils.closeSilently(conn);
         }
     }
+
+    public boolean putOpSnapshot(OpSnapshot snapshot) {
+        Connection conn = null;
+        try {
+            conn = provider.getConnection();
+            conn.setAutoCommit(false);
+            PreparedStatement query = conn.prepareStatement("merge into op_snapshot(url, type, data, created_at) key(url) values(?, ?, ?, ?)");
+            query.setString(1, snapshot.getUrl());
+            query.setString(2, snapshot.getType().name());
+            query.setString(3, snapshot.getData());
+            query.setTimestamp(4, new Timestamp(snapshot.getCreatedAt()));
+            query.executeUpdate();
+            query.close();
+
+            conn.commit();
+            LOG.debug("OP snapshot saved successfully: " + snapshot);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to save OP snapshot: " + snapshot, e);
+            rollbackSilently(conn);
+            return false;
+        } finally {
+            IOUtils.closeSilently(conn);
+        }
+    }
+
+    public Set<OpSnapshot> getOpSnapshots() {
+        Connection conn = null;
+        try {
+            conn = provider.getConnection();
+            conn.setAutoCommit(false);
+
+            PreparedStatement query = conn.prepareStatement("select url, type, data, created_at from op_snapshot");
+            ResultSet rs = query.executeQuery();
+
+            Set<OpSnapshot> result = new HashSet<>();
+            while (rs.next()) {
+                try {
+                    OpSnapshot snapshot = new OpSnapshot(rs.getString("url"), OpSnapshot.Type.valueOf(rs.getString("type")), rs.getString("data"));
+                    snapshot.setCreatedAt(rs.getTimestamp("created_at").getTime());
+                    result.add(snapshot);
+                } catch (IllegalArgumentException e) {
+                    LOG.error("Failed to parse OP snapshot, url: " + rs.getString("url"), e);
+                }
+            }
+
+            query.close();
+            conn.commit();
+            LOG.debug("Loaded " + result.size() + " OP snapshots.");
+            return result;
+        } catch (Exception e) {
+            LOG.error("Failed to fetch OP snapshots. Error: " + e.getMessage(), e);
+            rollbackSilently(conn);
+            return new HashSet<>();
+        } finally {
+            IOUtils.closeSilently(conn);
+        }
+    }
+
+    public boolean putCacheEntry(String key, String value, int expirationInSeconds) {
+        return false; // shared cache is not supported by sql storage
+    }
+
+    public String getCacheEntry(String key) {
+        return null;
+    }
+
+    public boolean putClientIdIndex(String clientId, String oxdId) {
+        Connection conn = null;
+        try {
+            conn = provider.getConnection();
+            conn.setAutoCommit(false);
+            PreparedStatement query = conn.prepareStatement("merge into rp_client_id(client_id, oxd_id) key(client_id) values(?, ?)");
+            query.setString(1, clientId);
+            query.setString(2, oxdId);
+            query.executeUpdate();
+            query.close();
+
+            conn.commit();
+            LOG.debug("Client_id index entry saved successfully, client_id: " + clientId + ", oxd_id: " + oxdId);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to save client_id index entry, client_id: " + clientId, e);
+            rollbackSilently(conn);
+            return false;
+        } finally {
+            IOUtils.closeSilently(conn);
+        }
+    }
+
+    public boolean removeClientIdIndex(String clientId) {
+        Connection conn = null;
+        try {
+            conn = provider.getConnection();
+            conn.setAutoCommit(false);
+            PreparedStatement query = conn.prepareStatement("delete from rp_client_id where client_id = ?");
+            query.setString(1, clientId);
+            query.executeUpdate();
+            query.close();
+
+            conn.commit();
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to remove client_id index entry, client_id: " + clientId, e);
+            rollbackSilently(conn);
+            return false;
+        } finally {
+            IOUtils.closeSilently(conn);
+        }
+    }
+
+    public String getOxdIdByClientId(String clientId) {
+        Connection conn = null;
+        try {
+            conn = provider.getConnection();
+            conn.setAutoCommit(false);
+            PreparedStatement query = conn.prepareStatement("select oxd_id from rp_client_id where client_id = ?");
+            query.setString(1, clientId);
+            ResultSet rs = query.executeQuery();
+
+            String oxdId = rs.next() ? rs.getString("oxd_id") : null;
+            query.close();
+            conn.commit();
+            return oxdId;
+        } catch (Exception e) {
+            LOG.error("Failed to find oxd_id by client_id: " + clientId, e);
+            rollbackSilently(conn);
+            return null;
+        } finally {
+            IOUtils.closeSilently(conn);
+        }
+    }
+
+    public boolean rebuildClientIdIndex(Map<String, String> clientIdToOxdId) {
+        Connection conn = null;
+        try {
+            conn = provider.getConnection();
+            conn.setAutoCommit(false);
+            PreparedStatement query = conn.prepareStatement("delete from rp_client_id");
+            query.executeUpdate();
+            query.close();
+
+            query = conn.prepareStatement("insert into rp_client_id(client_id, oxd_id) values(?, ?)");
+            for (Map.Entry<String, String> entry : clientIdToOxdId.entrySet()) {
+                query.setString(1, entry.getKey());
+                query.setString(2, entry.getValue());
+                query.addBatch();
+            }
+            query.executeBatch();
+            query.close();
+
+            conn.commit();
+            LOG.debug("Rebuilt client_id index, size: " + clientIdToOxdId.size());
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to rebuild client_id index.", e);
+            rollbackSilently(conn);
+            return false;
+        } finally {
+            IOUtils.closeSilently(conn);
+        }
+    }
+
+    public boolean putRpToken(RpToken token) {
+        Connection conn = null;
+        try {
+            conn = provider.getConnection();
+            conn.setAutoCommit(false);
+            PreparedStatement query = conn.prepareStatement("merge into rp_token(oxd_id, type, data, exp) key(oxd_id, type) values(?, ?, ?, ?)");
+            query.setString(1, token.getOxdId());
+            query.setString(2, token.getType().name());
+            query.setString(3, Jackson2.serializeWithoutNulls(token));
+            query.setTimestamp(4, token.getExpiresAt() != null ? new Timestamp(token.getExpiresAt().getTime()) : null);
+            query.executeUpdate();
+            query.close();
+
+            conn.commit();
+            LOG.debug("Rp token saved successfully: " + token);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to save rp token: " + token, e);
+            rollbackSilently(conn);
+            return false;
+        } finally {
+            IOUtils.closeSilently(conn);
+        }
+    }
+
+    public List<RpToken> getRpTokens(String oxdId) {
+        Connection conn = null;
+        try {
+            conn = provider.getConnection();
+            conn.setAutoCommit(false);
+            PreparedStatement query = conn.prepareStatement("select data from rp_token where oxd_id = ? and (exp is null or exp > CURRENT_TIMESTAMP())");
+            query.setString(1, oxdId);
+            ResultSet rs = query.executeQuery();
+
+            List<RpToken> result = new ArrayList<>();
+            while (rs.next()) {
+                try {
+                    result.add(Jackson2.createJsonMapper().readValue(rs.getString("data"), RpToken.class));
+                } catch (IOException e) {
+                    LOG.error("Failed to parse rp token, oxdId: " + oxdId, e);
+                }
+            }
+
+            query.close();
+            conn.commit();
+            return result;
+        } catch (Exception e) {
+            LOG.error("Failed to fetch rp tokens, oxdId: " + oxdId, e);
+            rollbackSilently(conn);
+            return new ArrayList<>();
+        } finally {
+            IOUtils.closeSilently(conn);
+        }
+    }
 }
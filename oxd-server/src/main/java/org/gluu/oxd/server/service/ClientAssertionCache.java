@@ -0,0 +1,109 @@
+package org.gluu.oxd.server.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.crypto.OxAuthCryptoProvider;
+import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.jwt.JwtClaimName;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in cache of signed private_key_jwt client assertions (client_assertion_cache_enabled=true) keyed by client_id,
+ * audience, algorithm and kid. Assertion is reused until client_assertion_expiration_margin_in_seconds before its exp.
+ * Cache is cleared when crypto provider is reloaded (key store is modified).
+ * <p>
+ * Enable it only if OP does not enforce one-time use of assertion jti.
+ */
+public class ClientAssertionCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClientAssertionCache.class);
+
+    private final boolean enabled;
+    private final long marginInMillis;
+    private final Cache<String, Entry> cache;
+    private volatile OxAuthCryptoProvider cryptoProvider;
+
+    @Inject
+    public ClientAssertionCache(OxdServerConfiguration configuration) {
+        final Boolean enabled = configuration.getClientAssertionCacheEnabled();
+        this.enabled = enabled != null && enabled && configuration.getClientAssertionCacheMaxSize() > 0;
+        this.marginInMillis = TimeUnit.SECONDS.toMillis(Math.max(configuration.getClientAssertionExpirationMarginInSeconds(), 0));
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(configuration.getClientAssertionCacheMaxSize(), 0))
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static String key(String clientId, String audience, String algorithm, String keyId) {
+        return StringUtils.join(new Object[]{clientId, audience, algorithm, keyId}, "|");
+    }
+
+    /**
+     * @param key            key created by {@link #key(String, String, String, String)}
+     * @param cryptoProvider crypto provider used to sign assertion, cached assertions signed by other provider are discarded
+     * @param signer         signs new assertion on miss
+     * @return cached or newly signed assertion
+     */
+    public String get(String key, OxAuthCryptoProvider cryptoProvider, Callable<String> signer) throws Exception {
+        if (!enabled) {
+            return signer.call();
+        }
+        if (this.cryptoProvider != cryptoProvider) {
+            LOG.trace("Crypto provider is changed, clear cached client assertions.");
+            cache.invalidateAll();
+            this.cryptoProvider = cryptoProvider;
+        }
+
+        final Entry cached = cache.getIfPresent(key);
+        if (cached != null && System.currentTimeMillis() < cached.reuseUntil) {
+            return cached.assertion;
+        }
+
+        final String assertion = signer.call();
+        final long reuseUntil = expiresAt(assertion) - marginInMillis;
+        if (reuseUntil > System.currentTimeMillis()) {
+            cache.put(key, new Entry(assertion, reuseUntil));
+        } else {
+            cache.invalidate(key);
+        }
+        return assertion;
+    }
+
+    private static long expiresAt(String assertion) {
+        if (StringUtils.isBlank(assertion)) {
+            return 0;
+        }
+        final Jwt jwt = IntrospectionService.parseJwt(assertion);
+        if (jwt == null) {
+            return 0;
+        }
+        final Date exp = jwt.getClaims().getClaimAsDate(JwtClaimName.EXPIRATION_TIME);
+        return exp != null ? exp.getTime() : 0;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static class Entry {
+
+        private final String assertion;
+        private final long reuseUntil;
+
+        private Entry(String assertion, long reuseUntil) {
+            this.assertion = assertion;
+            this.reuseUntil = reuseUntil;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.gluu.oxd.server.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxd.common.params.GetClientTokenParams;
+import org.gluu.oxd.common.response.GetClientTokenResponse;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in cache of client credentials tokens obtained by get_client_token (client_token_cache_enabled=true).
+ * <p>
+ * Key is hash of op_host, op_discovery_path, client_id, scopes, authentication method (with algorithm and key id)
+ * and hash of client secret, so token is never shared between different clients or credentials. Token is served from
+ * cache until client_token_cache_reuse_fraction of its expires_in is passed, returned expires_in is reduced by time
+ * token spent in cache. Concurrent misses for the same key are collapsed into one token request.
+ */
+public class ClientTokenCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClientTokenCache.class);
+
+    private final boolean enabled;
+    private final double reuseFraction;
+    private final Cache<String, Entry> cache;
+    private final SingleFlight<String, Entry> flight = new SingleFlight<>();
+
+    @Inject
+    public ClientTokenCache(OxdServerConfiguration configuration) {
+        final Boolean enabled = configuration.getClientTokenCacheEnabled();
+        final Double reuseFraction = configuration.getClientTokenCacheReuseFraction();
+        this.reuseFraction = reuseFraction != null ? Math.max(0, Math.min(reuseFraction, 1)) : 0;
+        this.enabled = enabled != null && enabled && configuration.getClientTokenCacheMaxSize() > 0 && this.reuseFraction > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(configuration.getClientTokenCacheMaxSize(), 0))
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static String key(GetClientTokenParams params) {
+        final Set<String> scopes = new TreeSet<>();
+        scopes.add("openid"); // always requested, see GetClientTokenOperation
+        if (params.getScope() != null) {
+            scopes.addAll(params.getScope());
+        }
+        return DigestUtils.sha256Hex(StringUtils.join(new Object[]{
+                params.getOpHost(),
+                params.getOpDiscoveryPath(),
+                params.getClientId(),
+                StringUtils.join(scopes, " "),
+                params.getAuthenticationMethod(),
+                params.getAlgorithm(),
+                params.getKeyId(),
+                params.getClientSecret() != null ? DigestUtils.sha256Hex(params.getClientSecret()) : null
+        }, "|"));
+    }
+
+    /**
+     * @param key    key created by {@link #key(GetClientTokenParams)}
+     * @param loader requests token from OP on miss
+     * @return cached (with reduced expires_in) or newly obtained token
+     */
+    public GetClientTokenResponse get(final String key, final Callable<GetClientTokenResponse> loader) throws Exception {
+        if (!enabled) {
+            return loader.call();
+        }
+
+        final Entry cached = getValid(key);
+        if (cached != null) {
+            return cached.toResponse(System.currentTimeMillis());
+        }
+
+        final Entry entry = flight.execute(key, new Callable<Entry>() {
+            @Override
+            public Entry call() throws Exception {
+                final Entry valid = getValid(key); // could be put by flight which completed right before this one
+                if (valid != null) {
+                    return valid;
+                }
+                final Entry loaded = new Entry(loader.call(), System.currentTimeMillis(), reuseFraction);
+                if (loaded.isCacheable()) {
+                    cache.put(key, loaded);
+                } else {
+                    LOG.trace("Client token is not cached because of missing expires_in.");
+                }
+                return loaded;
+            }
+        });
+        return entry.toResponse(System.currentTimeMillis());
+    }
+
+    private Entry getValid(String key) {
+        final Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isValid(System.currentTimeMillis())) {
+            return entry;
+        }
+        cache.invalidate(key);
+        return null;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static class Entry {
+
+        private final GetClientTokenResponse response;
+        private final long createdAt;
+        private final long reuseUntil;
+
+        private Entry(GetClientTokenResponse response, long createdAt, double reuseFraction) {
+            this.response = response;
+            this.createdAt = createdAt;
+            this.reuseUntil = createdAt + (long) (TimeUnit.SECONDS.toMillis(Math.max(response.getExpiresIn(), 0)) * reuseFraction);
+        }
+
+        private boolean isCacheable() {
+            return reuseUntil > createdAt;
+        }
+
+        private boolean isValid(long now) {
+            return now < reuseUntil;
+        }
+
+        private GetClientTokenResponse toResponse(long now) {
+            final GetClientTokenResponse copy = new GetClientTokenResponse();
+            copy.setAccessToken(response.getAccessToken());
+            copy.setRefreshToken(response.getRefreshToken());
+            copy.setScope(response.getScope());
+            copy.setExpiresIn(Math.max(response.getExpiresIn() - (int) TimeUnit.MILLISECONDS.toSeconds(now - createdAt), 0));
+            return copy;
+        }
+    }
+}
@@ -24,6 +24,8 @@ public class ConfigurationService implements Provider<OxdServerConfiguration> {
 
     public void setConfiguration(OxdServerConfiguration configuration) {
         Preconditions.checkNotNull(configuration, "Failed to load configuration.");
+        Preconditions.checkArgument("rp".equalsIgnoreCase(configuration.getLoginTokensStorage()) || "none".equalsIgnoreCase(configuration.getLoginTokensStorage()),
+                "Unsupported login_tokens_storage: %s, supported values: rp, none", configuration.getLoginTokensStorage());
         this.configuration = configuration;
     }
 
@@ -0,0 +1,63 @@
+package org.gluu.oxd.server.service;
+
+import com.google.inject.Inject;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.crypto.OxAuthCryptoProvider;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Holds one crypto provider created from crypt_provider_key_store_path instead of loading (and decrypting) key store
+ * on every call. Provider is re-created when key store file is modified, if reload fails previously loaded provider
+ * is kept.
+ */
+public class CryptoProviderService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CryptoProviderService.class);
+
+    private final OxdServerConfiguration configuration;
+
+    private volatile OxAuthCryptoProvider cryptoProvider;
+    private volatile long keyStoreLastModified;
+
+    @Inject
+    public CryptoProviderService(OxdServerConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public OxAuthCryptoProvider getCryptoProvider() throws Exception {
+        final OxAuthCryptoProvider provider = cryptoProvider;
+        if (provider != null && keyStoreLastModified() == keyStoreLastModified) {
+            return provider;
+        }
+        return reload();
+    }
+
+    private synchronized OxAuthCryptoProvider reload() throws Exception {
+        final long lastModified = keyStoreLastModified();
+        if (cryptoProvider != null && lastModified == keyStoreLastModified) {
+            return cryptoProvider; // reloaded by another thread
+        }
+
+        try {
+            cryptoProvider = new OxAuthCryptoProvider(configuration.getCryptProviderKeyStorePath(),
+                    configuration.getCryptProviderKeyStorePassword(), configuration.getCryptProviderDnName());
+            keyStoreLastModified = lastModified;
+            LOG.debug("Loaded crypto provider key store: " + configuration.getCryptProviderKeyStorePath());
+        } catch (Exception e) {
+            if (cryptoProvider == null) {
+                throw e;
+            }
+            LOG.error("Failed to reload crypto provider key store: " + configuration.getCryptProviderKeyStorePath() + ". Keep using previously loaded key store.", e);
+        }
+        return cryptoProvider;
+    }
+
+    private long keyStoreLastModified() {
+        final String keyStorePath = configuration.getCryptProviderKeyStorePath();
+        return StringUtils.isNotBlank(keyStorePath) ? new File(keyStorePath).lastModified() : 0;
+    }
+}
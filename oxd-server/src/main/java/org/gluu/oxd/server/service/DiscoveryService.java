@@ -8,9 +8,15 @@ import org.apache.commons.lang.StringUtils;
 import org.gluu.oxauth.client.OpenIdConfigurationClient;
 import org.gluu.oxauth.client.OpenIdConfigurationResponse;
 import org.gluu.oxauth.model.uma.UmaMetadata;
+import org.gluu.oxauth.model.util.Util;
+import org.gluu.oxd.common.CoreUtils;
 import org.gluu.oxd.common.ErrorResponseCode;
 import org.gluu.oxd.server.HttpException;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.gluu.oxd.server.Utils;
+import org.gluu.oxd.server.model.OpSnapshot;
 import org.gluu.oxd.server.op.OpClientFactory;
+import org.gluu.oxd.server.persistence.PersistenceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,8 +24,9 @@ import javax.net.ssl.SSLHandshakeException;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -36,20 +43,92 @@ public class DiscoveryService {
 
     public static final String WELL_KNOWN_UMA_PATH = "/.well-known/uma2-configuration";
 
-    private final ConcurrentMap<String, OpenIdConfigurationResponse> map = new ConcurrentHashMap<String, OpenIdConfigurationResponse>();
-    private final ConcurrentMap<String, UmaMetadata> umaMap = new ConcurrentHashMap<String, UmaMetadata>();
-
     private final HttpService httpService;
     private final RpSyncService rpSyncService;
     private final ValidationService validationService;
     private final OpClientFactory opClientFactory;
+    private final PersistenceService persistenceService;
+    private final OxdServerConfiguration configuration;
+    private final ExecutorService refreshExecutor;
+
+    private final RefreshAheadCache<String, OpenIdConfigurationResponse> connectCache;
+    private final RefreshAheadCache<String, UmaMetadata> umaCache;
 
     @Inject
-    public DiscoveryService(HttpService httpService, RpSyncService rpSyncService, ValidationService validationService, OpClientFactory opClientFactory) {
+    public DiscoveryService(HttpService httpService, RpSyncService rpSyncService, ValidationService validationService, OpClientFactory opClientFactory,
+                            PersistenceService persistenceService, ConfigurationService configurationService) {
         this.httpService = httpService;
         this.rpSyncService = rpSyncService;
         this.validationService = validationService;
         this.opClientFactory = opClientFactory;
+        this.persistenceService = persistenceService;
+        this.configuration = configurationService.get();
+
+        this.refreshExecutor = Executors.newFixedThreadPool(2, CoreUtils.daemonThreadFactory());
+        final long maxSize = configuration.getDiscoveryCacheMaxSize();
+        final long maxTtl = TimeUnit.MINUTES.toSeconds(configuration.getDiscoveryCacheMaxTtlInMinutes());
+
+        this.connectCache = new RefreshAheadCache<>(new RefreshAheadCache.Loader<String, OpenIdConfigurationResponse>() {
+            @Override
+            public RefreshAheadCache.Entry<OpenIdConfigurationResponse> load(String discoveryUrl) {
+                final OpenIdConfigurationResponse response = fetchConnectDiscoveryResponse(discoveryUrl);
+                saveSnapshot(new OpSnapshot(discoveryUrl, OpSnapshot.Type.DISCOVERY, response.getEntity()));
+                return new RefreshAheadCache.Entry<>(response, ttlInSeconds(Utils.cacheTtlInSeconds(response.getHeaders())));
+            }
+        }, refreshExecutor, maxSize, maxTtl);
+        this.umaCache = new RefreshAheadCache<>(new RefreshAheadCache.Loader<String, UmaMetadata>() {
+            @Override
+            public RefreshAheadCache.Entry<UmaMetadata> load(String discoveryUrl) {
+                final UmaMetadata metadata = fetchUmaDiscovery(discoveryUrl);
+                saveSnapshot(new OpSnapshot(discoveryUrl, OpSnapshot.Type.UMA_DISCOVERY, Util.asJsonSilently(metadata)));
+                return new RefreshAheadCache.Entry<>(metadata, ttlInSeconds(-1));
+            }
+        }, refreshExecutor, maxSize, maxTtl);
+    }
+
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Puts persisted discovery documents into cache, so they are served right after restart, and revalidates them in background.
+     */
+    public void loadSnapshots() {
+        int loaded = 0;
+        for (OpSnapshot snapshot : persistenceService.getOpSnapshots()) {
+            try {
+                if (snapshot.getType() == OpSnapshot.Type.DISCOVERY) {
+                    final OpenIdConfigurationResponse response = new OpenIdConfigurationResponse(200);
+                    response.setEntity(snapshot.getData());
+                    OpenIdConfigurationClient.parse(snapshot.getData(), response);
+
+                    connectCache.put(snapshot.getUrl(), new RefreshAheadCache.Entry<>(response, ttlInSeconds(-1)));
+                    connectCache.refresh(snapshot.getUrl());
+                    loaded++;
+                } else if (snapshot.getType() == OpSnapshot.Type.UMA_DISCOVERY) {
+                    final UmaMetadata metadata = Util.createJsonMapper().readValue(snapshot.getData(), UmaMetadata.class);
+
+                    umaCache.put(snapshot.getUrl(), new RefreshAheadCache.Entry<>(metadata, ttlInSeconds(-1)));
+                    umaCache.refresh(snapshot.getUrl());
+                    loaded++;
+                }
+            } catch (Exception e) {
+                LOG.error("Failed to load discovery snapshot: " + snapshot, e);
+            }
+        }
+        LOG.debug("Loaded {} discovery snapshots.", loaded);
+    }
+
+    private void saveSnapshot(final OpSnapshot snapshot) {
+        if (StringUtils.isBlank(snapshot.getData())) {
+            return;
+        }
+        refreshExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                persistenceService.putOpSnapshot(snapshot);
+            }
+        });
     }
 
     public OpenIdConfigurationResponse getConnectDiscoveryResponseByOxdId(String oxdId) {
@@ -67,17 +146,16 @@ public class DiscoveryService {
         validationService.notBlankOpHost(opHost);
         validationService.isOpHostAllowed(opHost);
 
+        return connectCache.get(getConnectDiscoveryUrl(opHost, opDiscoveryPath));
+    }
+
+    private OpenIdConfigurationResponse fetchConnectDiscoveryResponse(String discoveryUrl) {
         try {
-            final OpenIdConfigurationResponse r = map.get(opHost);
-            if (r != null) {
-                return r;
-            }
-            final OpenIdConfigurationClient client = opClientFactory.createOpenIdConfigurationClient(getConnectDiscoveryUrl(opHost, opDiscoveryPath));
+            final OpenIdConfigurationClient client = opClientFactory.createOpenIdConfigurationClient(discoveryUrl);
             client.setExecutor(httpService.getClientExecutor());
             final OpenIdConfigurationResponse response = client.execOpenIdConfiguration();
             LOG.trace("Discovery response: {} ", response.getEntity());
             if (StringUtils.isNotBlank(response.getEntity())) {
-                map.put(opHost, response);
                 return response;
             } else {
                 LOG.error("No response from discovery!");
@@ -91,7 +169,7 @@ public class DiscoveryService {
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
         }
-        LOG.error("Unable to fetch discovery information for op_host: {}", opHost);
+        LOG.error("Unable to fetch discovery information, url: {}", discoveryUrl);
         throw new HttpException(ErrorResponseCode.NO_CONNECT_DISCOVERY_RESPONSE);
     }
 
@@ -106,24 +184,33 @@ public class DiscoveryService {
         validationService.notBlankOpHost(opHost);
         validationService.isOpHostAllowed(opHost);
 
+        return umaCache.get(getUmaDiscoveryUrl(opHost, opDiscoveryPath));
+    }
+
+    private UmaMetadata fetchUmaDiscovery(String discoveryUrl) {
         try {
-            final UmaMetadata r = umaMap.get(opHost);
-            if (r != null) {
-                return r;
-            }
             final UmaMetadata response = opClientFactory.createUmaClientFactory().createMetadataService(
-                    getUmaDiscoveryUrl(opHost, opDiscoveryPath), httpService.getClientExecutor()).getMetadata();
+                    discoveryUrl, httpService.getClientExecutor()).getMetadata();
             LOG.trace("Uma discovery response: {} ", response);
-            umaMap.put(opHost, response);
             return response;
-
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
         }
-        LOG.error("Unable to fetch UMA discovery information for op_host: {}", opHost);
+        LOG.error("Unable to fetch UMA discovery information, url: {}", discoveryUrl);
         throw new HttpException(ErrorResponseCode.NO_UMA_DISCOVERY_RESPONSE);
     }
 
+    /**
+     * @param ttlFromOp ttl defined by OP response headers, -1 if OP did not define it
+     * @return ttl in seconds bounded by configured min and max ttl
+     */
+    private long ttlInSeconds(long ttlFromOp) {
+        final long ttl = ttlFromOp >= 0 ? ttlFromOp : TimeUnit.MINUTES.toSeconds(configuration.getDiscoveryCacheDefaultTtlInMinutes());
+        final long min = configuration.getDiscoveryCacheMinTtlInSeconds();
+        final long max = TimeUnit.MINUTES.toSeconds(configuration.getDiscoveryCacheMaxTtlInMinutes());
+        return Math.max(min, Math.min(ttl, max));
+    }
+
     public String getConnectDiscoveryUrl(Rp rp) {
         return getConnectDiscoveryUrl(rp.getOpHost(), rp.getOpDiscoveryPath());
     }
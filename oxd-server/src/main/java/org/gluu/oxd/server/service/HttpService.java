@@ -5,8 +5,17 @@ package org.gluu.oxd.server.service;
 
 import com.google.inject.Inject;
 import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
 import org.jboss.resteasy.client.ClientExecutor;
 import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
 import org.slf4j.Logger;
@@ -15,8 +24,13 @@ import org.gluu.oxd.common.CoreUtils;
 import org.gluu.oxd.server.OxdServerConfiguration;
 
 import java.io.File;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Holds one long-lived pooled http client (created according to trust configuration) which is shared
+ * by all outbound calls to OP (token, userinfo, introspection, discovery, jwks, etc.).
+ *
  * @author Yuriy Zabrovarnyy
  */
 
@@ -26,17 +40,84 @@ public class HttpService {
 
     private OxdServerConfiguration configuration;
 
+    private volatile HttpClient httpClient;
+    private volatile ClientExecutor clientExecutor;
+    private PoolingClientConnectionManager connectionManager;
+    private ScheduledExecutorService scheduler;
+    private volatile long keyStoreLastModified;
+    private volatile boolean destroyed;
+
     @Inject
     public HttpService(OxdServerConfiguration configuration) {
         this.configuration = configuration;
     }
 
+    public void create() {
+        getHttpClient(); // build ssl context and connection pool once at startup instead of on first request
+    }
+
     public HttpClient getHttpClient() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                checkNotDestroyed();
+                if (httpClient == null) {
+                    httpClient = createHttpClient();
+                }
+                client = httpClient;
+            }
+        }
+        return client;
+    }
+
+    public ClientExecutor getClientExecutor() {
+        ClientExecutor executor = clientExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                checkNotDestroyed();
+                if (clientExecutor == null) {
+                    clientExecutor = new ApacheHttpClient4Executor(getHttpClient());
+                }
+                executor = clientExecutor;
+            }
+        }
+        return executor;
+    }
+
+    private HttpClient createHttpClient() {
+        connectionManager = CoreUtils.createPoolingConnectionManager(createSocketFactory(),
+                configuration.getHttpClientMaxTotalConnections(), configuration.getHttpClientMaxConnectionsPerRoute());
+
+        final long keepAliveInMillis = TimeUnit.SECONDS.toMillis(configuration.getHttpClientKeepAliveInSeconds());
+        final DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+        // bounded timeouts: slow or hung OP must not block request threads, exhausted pool fails fast
+        final HttpParams params = client.getParams();
+        HttpConnectionParams.setConnectionTimeout(params, Math.max(configuration.getHttpClientConnectTimeoutInMillis(), 0));
+        HttpConnectionParams.setSoTimeout(params, Math.max(configuration.getHttpClientSocketTimeoutInMillis(), 0));
+        params.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, Math.max(configuration.getHttpClientConnectionRequestTimeoutInMillis(), 1));
+        client.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                final long duration = super.getKeepAliveDuration(response, context);
+                return duration > 0 ? duration : keepAliveInMillis; // respect Keep-Alive header of OP if it is present
+            }
+        });
+
+        scheduler = CoreUtils.createExecutor();
+        startIdleConnectionEvictor();
+        startKeyStoreWatcher();
+        LOG.debug("Created pooled http client, maxTotal: {}, maxPerRoute: {}, connectTimeout: {}ms, socketTimeout: {}ms, connectionRequestTimeout: {}ms",
+                connectionManager.getMaxTotal(), connectionManager.getDefaultMaxPerRoute(), configuration.getHttpClientConnectTimeoutInMillis(),
+                configuration.getHttpClientSocketTimeoutInMillis(), configuration.getHttpClientConnectionRequestTimeoutInMillis());
+        return client;
+    }
+
+    private SSLSocketFactory createSocketFactory() {
         try {
             final Boolean trustAllCerts = configuration.getTrustAllCerts();
             if (trustAllCerts != null && trustAllCerts) {
                 LOG.trace("Created TRUST_ALL client.");
-                return CoreUtils.createHttpClientTrustAll();
+                return CoreUtils.createTrustAllSocketFactory();
             }
             final String keyStorePath = configuration.getKeyStorePath();
             if (StringUtils.isNotBlank(keyStorePath)) {
@@ -44,17 +125,96 @@ public class HttpService {
                 if (!keyStoreFile.exists()) {
                     LOG.error("ERROR in configuration. Key store path is invalid! Please fix key_store_path in oxd configuration");
                 } else {
-                    return CoreUtils.createHttpClientWithKeyStore(keyStoreFile, configuration.getKeyStorePassword());
+                    keyStoreLastModified = keyStoreFile.lastModified();
+                    return CoreUtils.createSocketFactoryWithKeyStore(keyStoreFile, configuration.getKeyStorePassword());
                 }
             }
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
             LOG.error("Failed to create http client based on oxd configuration. Created default client.");
         }
-        return new DefaultHttpClient();
+        return SSLSocketFactory.getSocketFactory();
     }
 
-    public ClientExecutor getClientExecutor() {
-        return new ApacheHttpClient4Executor(getHttpClient());
+    private void startIdleConnectionEvictor() {
+        final int idleTimeoutInSeconds = configuration.getHttpClientIdleConnectionTimeoutInSeconds();
+        if (idleTimeoutInSeconds <= 0) {
+            return;
+        }
+
+        final PoolingClientConnectionManager manager = connectionManager;
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    manager.closeExpiredConnections();
+                    manager.closeIdleConnections(idleTimeoutInSeconds, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    LOG.error("Failed to evict idle connections.", e);
+                }
+            }
+        }, idleTimeoutInSeconds, idleTimeoutInSeconds, TimeUnit.SECONDS);
+    }
+
+    private void startKeyStoreWatcher() {
+        final int checkIntervalInSeconds = configuration.getTrustStoreCheckIntervalInSeconds();
+        if (keyStoreLastModified == 0 || checkIntervalInSeconds <= 0) {
+            return; // trust store is not used
+        }
+
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                reloadKeyStoreIfChanged();
+            }
+        }, checkIntervalInSeconds, checkIntervalInSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Re-registers https scheme with socket factory built from modified trust store. Pooled connections
+     * opened with previous factory stay valid until they are evicted, new connections use new factory.
+     */
+    public void reloadKeyStoreIfChanged() {
+        final PoolingClientConnectionManager manager = connectionManager;
+        final String keyStorePath = configuration.getKeyStorePath();
+        if (manager == null || keyStoreLastModified == 0 || StringUtils.isBlank(keyStorePath)) { // trust store is not used
+            return;
+        }
+
+        final File keyStoreFile = new File(keyStorePath);
+        final long lastModified = keyStoreFile.lastModified();
+        if (lastModified == 0 || lastModified == keyStoreLastModified) {
+            return;
+        }
+
+        try {
+            final SSLSocketFactory socketFactory = CoreUtils.createSocketFactoryWithKeyStore(keyStoreFile, configuration.getKeyStorePassword());
+            manager.getSchemeRegistry().register(new Scheme("https", 443, socketFactory));
+            keyStoreLastModified = lastModified;
+            LOG.info("Reloaded trust store: " + keyStorePath);
+        } catch (Exception e) {
+            LOG.error("Failed to reload trust store: " + keyStorePath + ". Keep using previously loaded trust store.", e);
+        }
+    }
+
+    /**
+     * Pool is never re-created after destroy, otherwise in-flight background call would leak new pool on shutdown.
+     */
+    private void checkNotDestroyed() {
+        if (destroyed) {
+            throw new IllegalStateException("Http service is destroyed.");
+        }
+    }
+
+    public synchronized void destroy() {
+        destroyed = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+            connectionManager = null;
+        }
+        httpClient = null;
+        clientExecutor = null;
     }
 }
@@ -0,0 +1,170 @@
+package org.gluu.oxd.server.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxd.common.Jackson2;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.gluu.oxd.server.persistence.PersistenceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches introspection results by hash of token and oxd_id. Active result is cached until token expiration but not
+ * longer than introspection_cache_max_ttl_in_seconds, inactive result is cached for introspection_cache_negative_ttl_in_seconds.
+ * Max ttl therefore bounds how long revoked token is still accepted (also for protected oxd commands).
+ * <p>
+ * If introspection_cache_use_redis=true and storage is redis, results are also shared between oxd nodes via redis.
+ * Redis entry carries absolute expiration time, so result read from redis is not cached locally longer than on the node which put it.
+ */
+public class IntrospectionResultCache<V> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IntrospectionResultCache.class);
+
+    private static final String EXPIRES_AT = "expires_at";
+    private static final String VALUE = "value";
+
+    private final String name;
+    private final Class<V> type;
+    private final Function<V, Boolean> activeFunction;
+    private final Function<V, Integer> expiresAtFunction;
+    private final PersistenceService persistenceService;
+    private final boolean enabled;
+    private final boolean useRedis;
+    private final long maxTtlInSeconds;
+    private final long negativeTtlInSeconds;
+    private final Cache<String, Entry<V>> cache;
+    private final AtomicLong redisHits = new AtomicLong();
+
+    public IntrospectionResultCache(String name, Class<V> type, Function<V, Boolean> activeFunction, Function<V, Integer> expiresAtFunction,
+                                    OxdServerConfiguration configuration, PersistenceService persistenceService) {
+        this.name = name;
+        this.type = type;
+        this.activeFunction = activeFunction;
+        this.expiresAtFunction = expiresAtFunction;
+        this.persistenceService = persistenceService;
+        this.enabled = configuration.getIntrospectionCacheMaxSize() > 0 && configuration.getIntrospectionCacheMaxTtlInSeconds() > 0;
+        this.useRedis = configuration.getIntrospectionCacheUseRedis() != null && configuration.getIntrospectionCacheUseRedis()
+                && "redis".equalsIgnoreCase(configuration.getStorage());
+        this.maxTtlInSeconds = configuration.getIntrospectionCacheMaxTtlInSeconds();
+        this.negativeTtlInSeconds = configuration.getIntrospectionCacheNegativeTtlInSeconds();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(configuration.getIntrospectionCacheMaxSize(), 0))
+                .expireAfterWrite(Math.max(maxTtlInSeconds, negativeTtlInSeconds), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public static String key(String oxdId, String token) {
+        return DigestUtils.sha256Hex(oxdId + ":" + token);
+    }
+
+    public V get(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        final Entry<V> entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (System.currentTimeMillis() < entry.expiresAt) {
+                return entry.value;
+            }
+            cache.invalidate(key);
+        }
+
+        if (useRedis) {
+            final String json = persistenceService.getCacheEntry(redisKey(key));
+            if (StringUtils.isNotBlank(json)) {
+                try {
+                    final ObjectMapper mapper = Jackson2.createJsonMapper();
+                    final JsonNode node = mapper.readTree(json);
+                    final long expiresAt = node.path(EXPIRES_AT).asLong();
+                    if (System.currentTimeMillis() >= expiresAt || !node.hasNonNull(VALUE)) {
+                        return null;
+                    }
+                    final V value = mapper.treeToValue(node.get(VALUE), type);
+                    redisHits.incrementAndGet();
+                    // keep expiration of the entry which was put into redis, otherwise each node would extend it
+                    cache.put(key, new Entry<>(value, expiresAt));
+                    return value;
+                } catch (Exception e) {
+                    LOG.error("Failed to parse cached introspection result from redis.", e);
+                }
+            }
+        }
+        return null;
+    }
+
+    public void put(String key, V value) {
+        if (!enabled || value == null) {
+            return;
+        }
+
+        final long ttlInSeconds = ttlInSeconds(value);
+        if (ttlInSeconds <= 0) {
+            return;
+        }
+        final long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlInSeconds);
+        cache.put(key, new Entry<>(value, expiresAt));
+        if (useRedis) {
+            try {
+                final ObjectMapper mapper = Jackson2.createJsonMapper();
+                final ObjectNode node = mapper.createObjectNode();
+                node.put(EXPIRES_AT, expiresAt);
+                node.set(VALUE, mapper.valueToTree(value));
+                persistenceService.putCacheEntry(redisKey(key), mapper.writeValueAsString(node), (int) ttlInSeconds);
+            } catch (Exception e) {
+                LOG.error("Failed to put introspection result into redis.", e);
+            }
+        }
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    private long ttlInSeconds(V value) {
+        final Boolean active = activeFunction.apply(value);
+        if (active == null || !active) {
+            return negativeTtlInSeconds;
+        }
+        final Integer expiresAt = expiresAtFunction.apply(value);
+        if (expiresAt == null) {
+            return maxTtlInSeconds;
+        }
+        final long secondsToExpiration = expiresAt - TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        return Math.min(maxTtlInSeconds, secondsToExpiration);
+    }
+
+    private String redisKey(String key) {
+        return name + "_" + key;
+    }
+
+    public void registerMetrics(MetricRegistry registry) {
+        registry.register(MetricRegistry.name(name, "cache", "hits"), (Gauge<Long>) () -> cache.stats().hitCount());
+        registry.register(MetricRegistry.name(name, "cache", "misses"), (Gauge<Long>) () -> cache.stats().missCount());
+        registry.register(MetricRegistry.name(name, "cache", "redis-hits"), (Gauge<Long>) redisHits::get);
+        registry.register(MetricRegistry.name(name, "cache", "size"), (Gauge<Long>) cache::size);
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
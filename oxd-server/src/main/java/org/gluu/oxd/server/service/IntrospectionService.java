@@ -1,10 +1,26 @@
 package org.gluu.oxd.server.service;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.client.OpenIdConfigurationResponse;
+import org.gluu.oxauth.model.crypto.PublicKey;
+import org.gluu.oxauth.model.crypto.signature.AlgorithmFamily;
+import org.gluu.oxauth.model.crypto.signature.ECDSAPublicKey;
+import org.gluu.oxauth.model.crypto.signature.RSAPublicKey;
+import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
+import org.gluu.oxauth.model.jws.AbstractJwsSigner;
+import org.gluu.oxauth.model.jws.ECDSASigner;
+import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.jwt.JwtClaimName;
+import org.gluu.oxauth.model.jwt.JwtHeaderName;
+import org.gluu.oxd.common.Jackson2;
 import org.gluu.oxd.server.op.OpClientFactory;
+import org.gluu.oxd.server.persistence.PersistenceService;
 import org.jboss.resteasy.client.ClientResponseFailure;
 import org.jboss.resteasy.client.ProxyFactory;
 import org.jboss.resteasy.spi.ReaderException;
+import org.json.JSONArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.gluu.oxauth.model.common.IntrospectionResponse;
@@ -26,32 +42,211 @@ public class IntrospectionService {
     private UmaTokenService umaTokenService;
     private DiscoveryService discoveryService;
     private OpClientFactory opClientFactory;
+    private PublicOpKeyService keyService;
+    private final IntrospectionResultCache<IntrospectionResponse> tokenCache;
+    private final IntrospectionResultCache<CorrectRptIntrospectionResponse> rptCache;
 
     @Inject
-    public IntrospectionService(HttpService httpService, UmaTokenService umaTokenService, DiscoveryService discoveryService, OpClientFactory opClientFactory) {
+    public IntrospectionService(HttpService httpService, UmaTokenService umaTokenService, DiscoveryService discoveryService, OpClientFactory opClientFactory,
+                                PublicOpKeyService keyService, ConfigurationService configurationService, PersistenceService persistenceService) {
         this.httpService = httpService;
         this.umaTokenService = umaTokenService;
         this.discoveryService = discoveryService;
         this.opClientFactory = opClientFactory;
+        this.keyService = keyService;
+        this.tokenCache = new IntrospectionResultCache<>("introspection", IntrospectionResponse.class,
+                IntrospectionResponse::isActive, IntrospectionResponse::getExpiresAt, configurationService.get(), persistenceService);
+        this.rptCache = new IntrospectionResultCache<>("rpt_introspection", CorrectRptIntrospectionResponse.class,
+                CorrectRptIntrospectionResponse::getActive, CorrectRptIntrospectionResponse::getExpiresAt, configurationService.get(), persistenceService);
+    }
+
+    public void registerMetrics(MetricRegistry registry) {
+        tokenCache.registerMetrics(registry);
+        rptCache.registerMetrics(registry);
+    }
+
+    /**
+     * Introspects JWT access token locally (signature against cached jwks, exp, nbf, iss and aud).
+     * Note that revocation of such token on OP is not visible for local introspection.
+     *
+     * @return introspection response or null if token can't be validated locally (opaque token, unknown kid,
+     * unsupported algorithm, token issued for another client) and remote introspection has to be used
+     */
+    public IntrospectionResponse introspectJwtTokenLocally(Rp rp, String accessToken) {
+        final Jwt jwt = parseJwt(accessToken);
+        if (jwt == null) {
+            return null;
+        }
+
+        final List<String> audience = jwt.getClaims().getClaimAsStringList(JwtClaimName.AUDIENCE);
+        if (audience == null || !audience.contains(rp.getClientId())) {
+            LOG.trace("Access token audience does not contain client_id of rp, fallback to remote introspection.");
+            return null;
+        }
+
+        final Boolean valid = validateJwtLocally(jwt, discoveryService.getConnectDiscoveryResponse(rp));
+        if (valid == null) {
+            return null;
+        }
+
+        final IntrospectionResponse response = new IntrospectionResponse();
+        response.setActive(valid);
+        if (!valid) {
+            return response;
+        }
+        response.setClientId(jwt.getClaims().getClaimAsString("client_id"));
+        response.setScope(scopes(jwt));
+        response.setSub(jwt.getClaims().getClaimAsString(JwtClaimName.SUBJECT_IDENTIFIER));
+        response.setUsername(jwt.getClaims().getClaimAsString("username"));
+        response.setTokenType(jwt.getClaims().getClaimAsString("token_type"));
+        response.setIssuer(jwt.getClaims().getClaimAsString(JwtClaimName.ISSUER));
+        response.setAudience(jwt.getClaims().getClaimAsString(JwtClaimName.AUDIENCE));
+        response.setJti(jwt.getClaims().getClaimAsString(JwtClaimName.JWT_ID));
+        response.setAcrValues(jwt.getClaims().getClaimAsString("acr_values"));
+        response.setExpiresAt(dateToSeconds(jwt.getClaims().getClaimAsDate(JwtClaimName.EXPIRATION_TIME)));
+        response.setIssuedAt(dateToSeconds(jwt.getClaims().getClaimAsDate(JwtClaimName.ISSUED_AT)));
+        return response;
+    }
+
+    /**
+     * Introspects JWT RPT locally (signature against cached jwks, exp, nbf and iss), permissions are taken from
+     * "permissions" claim. Note that revocation of RPT on OP is not visible for local introspection.
+     *
+     * @return introspection response or null if RPT can't be validated locally (opaque RPT, unknown kid,
+     * unsupported algorithm) and remote introspection has to be used
+     */
+    public CorrectRptIntrospectionResponse introspectRptLocally(Rp rp, String rpt) {
+        final Jwt jwt = parseJwt(rpt);
+        if (jwt == null) {
+            return null;
+        }
+
+        final Boolean valid = validateJwtLocally(jwt, discoveryService.getConnectDiscoveryResponse(rp));
+        if (valid == null) {
+            return null;
+        }
+
+        final CorrectRptIntrospectionResponse response = new CorrectRptIntrospectionResponse();
+        response.setActive(valid);
+        if (!valid) {
+            return response;
+        }
+        try {
+            final JSONArray permissions = jwt.getClaims().toJsonObject().optJSONArray("permissions");
+            response.setPermissions(permissions != null ?
+                    new ArrayList<>(Arrays.asList(Jackson2.createJsonMapper().readValue(permissions.toString(), CorrectUmaPermission[].class))) :
+                    new ArrayList<CorrectUmaPermission>());
+        } catch (Exception e) {
+            LOG.error("Failed to read permissions from RPT, fallback to remote introspection.", e);
+            return null;
+        }
+        response.setClientId(jwt.getClaims().getClaimAsString("client_id"));
+        response.setJti(jwt.getClaims().getClaimAsString(JwtClaimName.JWT_ID));
+        response.setExpiresAt(dateToSeconds(jwt.getClaims().getClaimAsDate(JwtClaimName.EXPIRATION_TIME)));
+        response.setIssuedAt(dateToSeconds(jwt.getClaims().getClaimAsDate(JwtClaimName.ISSUED_AT)));
+        response.setNbf(dateToSeconds(jwt.getClaims().getClaimAsDate(JwtClaimName.NOT_BEFORE)));
+        return response;
+    }
+
+    /**
+     * @return parsed jwt or null if token is not JWT (e.g. opaque token)
+     */
+    public static Jwt parseJwt(String token) {
+        if (StringUtils.countMatches(token, ".") != 2) {
+            return null;
+        }
+        try {
+            return Jwt.parse(token);
+        } catch (Exception e) {
+            LOG.trace("Token is not JWT, message: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Validates signature against cached jwks of OP, exp, nbf and iss.
+     *
+     * @return true if jwt is valid, false if jwt is invalid and null if it can't be validated locally (unknown kid or unsupported algorithm)
+     */
+    public Boolean validateJwtLocally(Jwt jwt, OpenIdConfigurationResponse discoveryResponse) {
+        final SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.fromString(jwt.getHeader().getClaimAsString(JwtHeaderName.ALGORITHM));
+        if (signatureAlgorithm == null || (signatureAlgorithm.getFamily() != AlgorithmFamily.RSA && signatureAlgorithm.getFamily() != AlgorithmFamily.EC)) {
+            LOG.trace("Unable to validate jwt locally, unsupported algorithm: " + signatureAlgorithm);
+            return null;
+        }
+
+        final String kid = jwt.getHeader().getClaimAsString(JwtHeaderName.KEY_ID);
+        final PublicKey publicKey = keyService.getPublicKey(discoveryResponse.getJwksUri(), kid);
+        final AbstractJwsSigner signer;
+        if (publicKey instanceof RSAPublicKey && signatureAlgorithm.getFamily() == AlgorithmFamily.RSA) {
+            signer = opClientFactory.createRSASigner(signatureAlgorithm, (RSAPublicKey) publicKey);
+        } else if (publicKey instanceof ECDSAPublicKey && signatureAlgorithm.getFamily() == AlgorithmFamily.EC) {
+            signer = new ECDSASigner(signatureAlgorithm, (ECDSAPublicKey) publicKey);
+        } else {
+            LOG.trace("Unable to validate jwt locally, key is not found, kid: " + kid);
+            return null;
+        }
+
+        if (!signer.validate(jwt)) {
+            LOG.debug("Jwt signature is invalid.");
+            return false;
+        }
+
+        final Date now = new Date();
+        final Date expiresAt = jwt.getClaims().getClaimAsDate(JwtClaimName.EXPIRATION_TIME);
+        if (expiresAt == null || now.after(expiresAt)) {
+            LOG.debug("Jwt is expired, exp: " + expiresAt);
+            return false;
+        }
+        final Date notBefore = jwt.getClaims().getClaimAsDate(JwtClaimName.NOT_BEFORE);
+        if (notBefore != null && now.before(notBefore)) {
+            LOG.debug("Jwt is not valid yet, nbf: " + notBefore);
+            return false;
+        }
+        final String issuer = jwt.getClaims().getClaimAsString(JwtClaimName.ISSUER);
+        if (issuer == null || !issuer.equals(discoveryResponse.getIssuer())) {
+            LOG.debug("Jwt issuer is invalid. Token issuer: " + issuer + ", discovery issuer: " + discoveryResponse.getIssuer());
+            return false;
+        }
+        return true;
+    }
+
+    private static List<String> scopes(Jwt jwt) {
+        final List<String> scopes = jwt.getClaims().getClaimAsStringList("scope");
+        if (scopes != null && scopes.size() == 1) {
+            return new ArrayList<>(Arrays.asList(StringUtils.split(scopes.get(0), " ")));
+        }
+        return scopes != null ? scopes : new ArrayList<String>();
     }
 
     public IntrospectionResponse introspectToken(String oxdId, String accessToken) {
-        return introspectToken(oxdId, accessToken, true);
+        final String cacheKey = IntrospectionResultCache.key(oxdId, accessToken);
+        IntrospectionResponse response = tokenCache.get(cacheKey);
+        if (response != null) {
+            LOG.trace("Introspection response is taken from cache.");
+            return response;
+        }
+
+        response = introspectToken(oxdId, accessToken, true);
+        tokenCache.put(cacheKey, response);
+        return response;
     }
 
     private IntrospectionResponse introspectToken(String oxdId, String accessToken, boolean retry) {
         final String introspectionEndpoint = discoveryService.getConnectDiscoveryResponseByOxdId(oxdId).getIntrospectionEndpoint();
         final org.gluu.oxauth.client.service.IntrospectionService introspectionService = ProxyFactory.create(org.gluu.oxauth.client.service.IntrospectionService.class, introspectionEndpoint, httpService.getClientExecutor());
 
+        String oauthToken = null;
         try {
-            IntrospectionResponse response = introspectionService.introspectToken("Bearer " + umaTokenService.getOAuthToken(oxdId).getToken(), accessToken);
+            oauthToken = umaTokenService.getOAuthToken(oxdId).getToken();
+            IntrospectionResponse response = introspectionService.introspectToken("Bearer " + oauthToken, accessToken);
             return response; // we need local variable to force convertion here
         } catch (ClientResponseFailure e) {
             int status = e.getResponse().getStatus();
             LOG.debug("Failed to introspect token. Entity: " + e.getResponse().getEntity(String.class) + ", status: " + status, e);
             if (retry && (status == 400 || status == 401)) {
                 LOG.debug("Try maybe OAuthToken is lost on AS, force refresh OAuthToken and re-try ...");
-                umaTokenService.obtainOauthToken(oxdId); // force to refresh OAuthToken
+                umaTokenService.renewOAuthToken(oxdId, oauthToken); // force to refresh OAuthToken (shared with concurrent requests)
                 return introspectToken(oxdId, accessToken, false);
             } else {
                 throw e;
@@ -89,19 +284,30 @@ public class IntrospectionService {
     }
 
     public CorrectRptIntrospectionResponse introspectRpt(String oxdId, String rpt) {
-        return introspectRpt(oxdId, rpt, true);
+        final String cacheKey = IntrospectionResultCache.key(oxdId, rpt);
+        CorrectRptIntrospectionResponse response = rptCache.get(cacheKey);
+        if (response != null) {
+            LOG.trace("RPT introspection response is taken from cache.");
+            return response;
+        }
+
+        response = introspectRpt(oxdId, rpt, true);
+        rptCache.put(cacheKey, response);
+        return response;
     }
 
     private CorrectRptIntrospectionResponse introspectRpt(String oxdId, String rpt, boolean retry) {
         final UmaMetadata metadata = discoveryService.getUmaDiscoveryByOxdId(oxdId);
 
+        String pat = null;
         try {
             final CorrectRptIntrospectionService introspectionService = opClientFactory.createClientFactory().createCorrectRptStatusService(metadata, httpService.getClientExecutor());
-            return introspectionService.requestRptStatus("Bearer " + umaTokenService.getPat(oxdId).getToken(), rpt, "");
+            pat = umaTokenService.getPat(oxdId).getToken();
+            return introspectionService.requestRptStatus("Bearer " + pat, rpt, "");
         } catch (ClientResponseFailure e) {
             int httpStatus = e.getResponse().getStatus();
             if (retry && (httpStatus == 401 || httpStatus == 400 || httpStatus == 403)) {
-                umaTokenService.obtainPat(oxdId).getToken();
+                umaTokenService.renewPat(oxdId, pat); // force to refresh PAT (shared with concurrent requests)
                 return introspectRpt(oxdId, rpt, false);
             } else {
                 throw e;
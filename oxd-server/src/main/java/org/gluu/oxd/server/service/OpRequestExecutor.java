@@ -0,0 +1,143 @@
+package org.gluu.oxd.server.service;
+
+import com.google.inject.Inject;
+import org.gluu.oxd.common.CoreUtils;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs independent calls to OP (e.g. registration or removal of many UMA resources) in parallel on bounded pool
+ * (op_request_executor_threads). Number of calls executed at the same time against one OP is limited by
+ * op_request_max_concurrency_per_op for all commands together, so one big request can't flood OP.
+ * <p>
+ * If op_request_executor_threads <= 0 calls are executed sequentially in caller thread.
+ */
+public class OpRequestExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpRequestExecutor.class);
+
+    private final int maxConcurrencyPerOp;
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, Semaphore> permitsPerOp = new ConcurrentHashMap<>();
+
+    @Inject
+    public OpRequestExecutor(OxdServerConfiguration configuration) {
+        this.maxConcurrencyPerOp = Math.max(configuration.getOpRequestMaxConcurrencyPerOp(), 1);
+        this.executor = configuration.getOpRequestExecutorThreads() > 0 ?
+                Executors.newFixedThreadPool(configuration.getOpRequestExecutorThreads(), CoreUtils.daemonThreadFactory()) : null;
+    }
+
+    /**
+     * Executes all tasks and waits for completion.
+     *
+     * @return results in the same order as tasks, failure of one task does not affect others
+     */
+    public <T> List<Result<T>> invokeAll(String opHost, List<? extends Callable<T>> tasks) throws InterruptedException {
+        final List<Result<T>> results = new ArrayList<>(tasks.size());
+        if (executor == null) {
+            for (Callable<T> task : tasks) {
+                results.add(call(task));
+            }
+            return results;
+        }
+
+        final Semaphore permits = permits(opHost);
+        final List<Future<Result<T>>> futures = new ArrayList<>(tasks.size());
+        for (final Callable<T> task : tasks) {
+            permits.acquire();
+            try {
+                futures.add(executor.submit(new Callable<Result<T>>() {
+                    @Override
+                    public Result<T> call() {
+                        try {
+                            return OpRequestExecutor.call(task);
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        for (Future<Result<T>> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                results.add(Result.<T>failure(e.getCause()));
+            }
+        }
+        return results;
+    }
+
+    private Semaphore permits(String opHost) {
+        final String key = opHost != null ? opHost : "";
+        Semaphore permits = permitsPerOp.get(key);
+        if (permits == null) {
+            permitsPerOp.putIfAbsent(key, new Semaphore(maxConcurrencyPerOp));
+            permits = permitsPerOp.get(key);
+        }
+        return permits;
+    }
+
+    private static <T> Result<T> call(Callable<T> task) {
+        try {
+            return Result.success(task.call());
+        } catch (Exception e) {
+            LOG.trace("Task failed: " + e.getMessage(), e);
+            return Result.failure(e);
+        }
+    }
+
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public static class Result<T> {
+
+        private final T value;
+        private final Throwable error;
+
+        private Result(T value, Throwable error) {
+            this.value = value;
+            this.error = error;
+        }
+
+        public static <T> Result<T> success(T value) {
+            return new Result<>(value, null);
+        }
+
+        public static <T> Result<T> failure(Throwable error) {
+            return new Result<>(null, error);
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.gluu.oxd.server.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxd.common.response.RsCheckAccessResponse;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional short-lived cache of permission tickets registered for denied uma-rs-check-access calls, so repeated
+ * denials for the same resource and scopes are answered without registering new ticket on AS.
+ * <p>
+ * Enabled if permission_ticket_cache_ttl_in_seconds > 0. Ttl must be less than ticket lifetime configured on AS
+ * (umaTicketLifetime). Ticket is single use, so it is evicted once it is exchanged for RPT via uma-rp-get-rpt.
+ */
+public class PermissionTicketCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PermissionTicketCache.class);
+
+    private final boolean enabled;
+    /**
+     * oxd_id + resource id + scopes -> denied response (ticket and WWW-Authenticate header)
+     */
+    private final Cache<String, RsCheckAccessResponse> tickets;
+    /**
+     * ticket -> key in tickets cache
+     */
+    private final Cache<String, String> keysByTicket;
+
+    @Inject
+    public PermissionTicketCache(OxdServerConfiguration configuration) {
+        final int ttlInSeconds = Math.max(configuration.getPermissionTicketCacheTtlInSeconds(), 0);
+        final int maxSize = Math.max(configuration.getPermissionTicketCacheMaxSize(), 0);
+
+        this.enabled = ttlInSeconds > 0 && maxSize > 0;
+        this.tickets = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSeconds, TimeUnit.SECONDS)
+                .build();
+        this.keysByTicket = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public static String key(String oxdId, String resourceId, List<String> scopes) {
+        return oxdId + "|" + resourceId + "|" + StringUtils.join(new TreeSet<>(scopes), " ");
+    }
+
+    /**
+     * Key of multi-resource ticket.
+     */
+    public static String key(String oxdId, Map<String, List<String>> scopesByResourceId) {
+        final Set<String> permissions = new TreeSet<>();
+        for (Map.Entry<String, List<String>> entry : scopesByResourceId.entrySet()) {
+            permissions.add(key(oxdId, entry.getKey(), entry.getValue()));
+        }
+        return StringUtils.join(permissions, ";");
+    }
+
+    public RsCheckAccessResponse get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        final RsCheckAccessResponse cached = tickets.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        LOG.trace("Re-use permission ticket: {}", cached.getTicket());
+        final RsCheckAccessResponse response = new RsCheckAccessResponse(cached.getAccess());
+        response.setTicket(cached.getTicket());
+        response.setWwwAuthenticateHeader(cached.getWwwAuthenticateHeader());
+        return response;
+    }
+
+    public void put(String key, RsCheckAccessResponse response) {
+        if (!enabled || response == null || StringUtils.isBlank(response.getTicket())) {
+            return;
+        }
+        tickets.put(key, response);
+        keysByTicket.put(response.getTicket(), key);
+    }
+
+    /**
+     * Evicts ticket (e.g. when it is exchanged for RPT and therefore can't be used anymore).
+     */
+    public void invalidateTicket(String ticket) {
+        if (!enabled || StringUtils.isBlank(ticket)) {
+            return;
+        }
+        final String key = keysByTicket.getIfPresent(ticket);
+        if (key != null) {
+            keysByTicket.invalidate(ticket);
+            final RsCheckAccessResponse cached = tickets.getIfPresent(key);
+            if (cached != null && ticket.equals(cached.getTicket())) {
+                tickets.invalidate(key);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
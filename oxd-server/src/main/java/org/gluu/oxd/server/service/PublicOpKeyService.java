@@ -2,20 +2,48 @@ package org.gluu.oxd.server.service;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.Inject;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxd.common.CoreUtils;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.gluu.oxd.server.model.OpSnapshot;
 import org.gluu.oxd.server.op.OpClientFactory;
-import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
+import org.gluu.oxd.server.persistence.PersistenceService;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.gluu.oxauth.client.JwkClient;
 import org.gluu.oxauth.client.JwkResponse;
 import org.gluu.oxauth.model.crypto.PublicKey;
+import org.gluu.oxauth.model.crypto.signature.ECDSAPublicKey;
 import org.gluu.oxauth.model.crypto.signature.RSAPublicKey;
+import org.gluu.oxauth.model.jwk.JSONWebKey;
+import org.gluu.oxauth.model.jwk.JSONWebKeySet;
 import org.gluu.util.Pair;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Caches whole key set (RSA and EC keys) per jwks_uri. Key set is refreshed in background after
+ * public_op_key_cache_expiration_in_minutes, so key rotation is picked up without blocking requests.
+ * <p>
+ * Unknown kid leads to at most one refetch per public_op_key_refetch_min_interval_in_seconds for given jwks_uri,
+ * kid which is still unknown after refetch is remembered for public_op_key_negative_cache_in_seconds. It protects OP
+ * from being flooded by jwks requests caused by tokens with random kid.
+ *
  * @author Yuriy Zabrovarnyy
  */
 
@@ -23,52 +51,216 @@ public class PublicOpKeyService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PublicOpKeyService.class);
 
-    private final Cache<Pair<String, String>, RSAPublicKey> cache;
+    private final LoadingCache<String, KeySet> cache;
+    private final Cache<Pair<String, String>, Boolean> unknownKeys;
+    private final ConcurrentMap<String, AtomicLong> lastFetchedAt = new ConcurrentHashMap<>();
+    private final long refetchMinIntervalInMillis;
     private final HttpService httpService;
+    private final PersistenceService persistenceService;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(CoreUtils.daemonThreadFactory());
     private OpClientFactory opClientFactory;
 
     @Inject
-    public PublicOpKeyService(ConfigurationService configurationService, HttpService httpService, OpClientFactory opClientFactory) {
+    public PublicOpKeyService(ConfigurationService configurationService, HttpService httpService, OpClientFactory opClientFactory, PersistenceService persistenceService) {
+        final OxdServerConfiguration configuration = configurationService.get();
         this.cache = CacheBuilder.newBuilder()
-                .expireAfterWrite(configurationService.get().getPublicOpKeyCacheExpirationInMinutes(), TimeUnit.MINUTES)
+                .refreshAfterWrite(configuration.getPublicOpKeyCacheExpirationInMinutes(), TimeUnit.MINUTES)
+                .build(CacheLoader.asyncReloading(new CacheLoader<String, KeySet>() {
+                    @Override
+                    public KeySet load(String jwkSetUri) {
+                        try {
+                            return fetch(jwkSetUri);
+                        } catch (Exception e) {
+                            LOG.error("Failed to fetch jwks, jwks_uri: " + jwkSetUri, e);
+                            return KeySet.EMPTY; // unknown kid triggers (rate limited) refetch
+                        }
+                    }
+
+                    @Override
+                    public ListenableFuture<KeySet> reload(String jwkSetUri, KeySet oldValue) throws Exception {
+                        return Futures.immediateFuture(fetch(jwkSetUri)); // on failure old key set is kept
+                    }
+                }, executor));
+        this.unknownKeys = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(configuration.getPublicOpKeyNegativeCacheInSeconds(), TimeUnit.SECONDS)
                 .build();
+        this.refetchMinIntervalInMillis = TimeUnit.SECONDS.toMillis(configuration.getPublicOpKeyRefetchMinIntervalInSeconds());
         this.httpService = httpService;
         this.opClientFactory = opClientFactory;
+        this.persistenceService = persistenceService;
     }
 
+    public void destroy() {
+        executor.shutdownNow();
+    }
 
     public RSAPublicKey getRSAPublicKey(String jwkSetUri, String keyId) {
+        final PublicKey publicKey = getPublicKey(jwkSetUri, keyId);
+        return publicKey instanceof RSAPublicKey ? (RSAPublicKey) publicKey : null;
+    }
+
+    public ECDSAPublicKey getECDSAPublicKey(String jwkSetUri, String keyId) {
+        final PublicKey publicKey = getPublicKey(jwkSetUri, keyId);
+        return publicKey instanceof ECDSAPublicKey ? (ECDSAPublicKey) publicKey : null;
+    }
+
+    public PublicKey getPublicKey(String jwkSetUri, String keyId) {
         try {
+            PublicKey publicKey = cache.getUnchecked(jwkSetUri).get(keyId);
+            if (publicKey != null) {
+                return publicKey;
+            }
+
             final Pair<String, String> mapKey = new Pair<>(jwkSetUri, keyId);
+            if (unknownKeys.getIfPresent(mapKey) != null) {
+                LOG.debug("Key is not present in jwks (negative cache), mapKey: " + mapKey);
+                return null;
+            }
 
-            RSAPublicKey cachedKey = cache.getIfPresent(mapKey);
-            if (cachedKey != null) {
-                LOG.debug("Taken public key from cache, mapKey: " + mapKey);
-                return cachedKey;
+            publicKey = refetch(jwkSetUri).get(keyId);
+            if (publicKey == null) {
+                LOG.debug("Key is not present in jwks, mapKey: " + mapKey);
+                unknownKeys.put(mapKey, Boolean.TRUE);
             }
+            return publicKey;
+        } catch (UncheckedExecutionException e) {
+            LOG.error("Failed to fetch public key.", e.getCause());
+            throw new RuntimeException("Failed to fetch public key.", e.getCause());
+        }
+    }
 
-            RSAPublicKey publicKey = null;
+    public PublicKey refetchKey(String jwkUrl, String kid) {
+        unknownKeys.invalidate(new Pair<>(jwkUrl, kid));
+        return refetch(jwkUrl).get(kid);
+    }
+
+    /**
+     * Fetches key set if it was not fetched during last public_op_key_refetch_min_interval_in_seconds,
+     * otherwise returns cached key set.
+     */
+    private KeySet refetch(String jwkSetUri) {
+        final AtomicLong lastFetched = lastFetchedAt(jwkSetUri);
+        final long last = lastFetched.get();
+        final long now = System.currentTimeMillis();
+        if (now - last < refetchMinIntervalInMillis || !lastFetched.compareAndSet(last, now)) {
+            LOG.trace("Skipped jwks refetch because it was fetched recently, jwks_uri: " + jwkSetUri);
+            return cache.getUnchecked(jwkSetUri);
+        }
+
+        try {
+            final KeySet keySet = fetch(jwkSetUri);
+            cache.put(jwkSetUri, keySet);
+            return keySet;
+        } catch (Exception e) {
+            LOG.error("Failed to refetch jwks, jwks_uri: " + jwkSetUri, e);
+            return cache.getUnchecked(jwkSetUri);
+        }
+    }
+
+    private KeySet fetch(String jwkSetUri) throws Exception {
+        lastFetchedAt(jwkSetUri).set(System.currentTimeMillis());
+
+        JwkClient jwkClient = opClientFactory.createJwkClient(jwkSetUri);
+        jwkClient.setExecutor(httpService.getClientExecutor());
+        JwkResponse jwkResponse = jwkClient.exec();
+        if (jwkResponse == null || jwkResponse.getStatus() != 200) {
+            throw new IllegalStateException("Failed to fetch jwks, jwks_uri: " + jwkSetUri + ", status: " + (jwkResponse != null ? jwkResponse.getStatus() : null));
+        }
+
+        final KeySet keySet = new KeySet(jwkResponse);
+        LOG.debug("Fetched jwks, jwks_uri: " + jwkSetUri + ", kids: " + keySet.kids());
+        saveSnapshot(new OpSnapshot(jwkSetUri, OpSnapshot.Type.JWKS, jwkResponse.getEntity()));
+        return keySet;
+    }
 
-            JwkClient jwkClient = opClientFactory.createJwkClient(jwkSetUri);
-            jwkClient.setExecutor(new ApacheHttpClient4Executor(httpService.getHttpClient()));
-            JwkResponse jwkResponse = jwkClient.exec();
-            if (jwkResponse != null && jwkResponse.getStatus() == 200) {
-                PublicKey pk = jwkResponse.getPublicKey(keyId);
-                if (pk instanceof RSAPublicKey) {
-                    publicKey = (RSAPublicKey) pk;
-                    cache.put(mapKey, publicKey);
+    /**
+     * Snapshot is written in background, so jwks fetch on request thread does not wait for storage.
+     */
+    private void saveSnapshot(final OpSnapshot snapshot) {
+        if (StringUtils.isBlank(snapshot.getData())) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    persistenceService.putOpSnapshot(snapshot);
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.trace("Skipped jwks snapshot save, executor is stopped, jwks_uri: " + snapshot.getUrl());
+        }
+    }
+
+    private AtomicLong lastFetchedAt(String jwkSetUri) {
+        AtomicLong lastFetched = lastFetchedAt.get(jwkSetUri);
+        if (lastFetched == null) {
+            lastFetchedAt.putIfAbsent(jwkSetUri, new AtomicLong());
+            lastFetched = lastFetchedAt.get(jwkSetUri);
+        }
+        return lastFetched;
+    }
+
+    /**
+     * Puts persisted key sets into cache, so tokens can be verified right after restart, and revalidates them in background.
+     */
+    public void loadSnapshots() {
+        for (OpSnapshot snapshot : persistenceService.getOpSnapshots()) {
+            if (snapshot.getType() != OpSnapshot.Type.JWKS) {
+                continue;
             }
+            try {
+                final JwkResponse jwkResponse = new JwkResponse(200);
+                jwkResponse.setEntity(snapshot.getData());
+                jwkResponse.setJwks(JSONWebKeySet.fromJSONObject(new JSONObject(snapshot.getData())));
 
-            return publicKey;
-        } catch (Exception e) {
-            LOG.error("Failed to fetch public key.", e);
-            throw new RuntimeException("Failed to fetch public key.", e);
+                cache.put(snapshot.getUrl(), new KeySet(jwkResponse));
+                cache.refresh(snapshot.getUrl());
+            } catch (Exception e) {
+                LOG.error("Failed to load jwks snapshot: " + snapshot, e);
+            }
         }
     }
 
-    public RSAPublicKey refetchKey(String jwkUrl, String kid) {
-        cache.invalidate(new Pair<>(jwkUrl, kid));
-        return getRSAPublicKey(jwkUrl, kid);
+    /**
+     * Parsed jwks, public keys are converted once per kid and then reused.
+     */
+    private static class KeySet {
+
+        private static final KeySet EMPTY = new KeySet(null);
+
+        private final JwkResponse jwkResponse;
+        private final ConcurrentMap<String, PublicKey> keys = new ConcurrentHashMap<>();
+
+        private KeySet(JwkResponse jwkResponse) {
+            this.jwkResponse = jwkResponse;
+        }
+
+        private PublicKey get(String kid) {
+            if (kid == null || jwkResponse == null) {
+                return null;
+            }
+            PublicKey publicKey = keys.get(kid);
+            if (publicKey == null) {
+                publicKey = jwkResponse.getPublicKey(kid);
+                if (publicKey instanceof RSAPublicKey || publicKey instanceof ECDSAPublicKey) {
+                    keys.putIfAbsent(kid, publicKey);
+                } else {
+                    return null;
+                }
+            }
+            return publicKey;
+        }
+
+        private Set<String> kids() {
+            final Set<String> kids = new HashSet<>();
+            if (jwkResponse != null && jwkResponse.getJwks() != null) {
+                for (JSONWebKey key : jwkResponse.getJwks().getKeys()) {
+                    kids.add(key.getKid());
+                }
+            }
+            return kids;
+        }
     }
 }
@@ -0,0 +1,131 @@
+package org.gluu.oxd.server.service;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache where every entry has its own time-to-live (e.g. taken from Cache-Control of OP response).
+ * <p>
+ * - concurrent misses for the same key are collapsed into one load;
+ * - entry is refreshed in background when {@link #REFRESH_AHEAD_FACTOR} of its ttl is passed;
+ * - expired entry is still served during one more ttl while it is revalidated in background (stale-while-revalidate),
+ * after that it is reloaded synchronously.
+ */
+public class RefreshAheadCache<K, V> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+    public static final double REFRESH_AHEAD_FACTOR = 0.8;
+
+    public interface Loader<K, V> {
+        Entry<V> load(K key) throws Exception;
+    }
+
+    public static class Entry<V> {
+
+        private final V value;
+        private final long createdAt;
+        private final long expiresAt;
+
+        public Entry(V value, long ttlInSeconds) {
+            this.value = value;
+            this.createdAt = System.currentTimeMillis();
+            this.expiresAt = createdAt + TimeUnit.SECONDS.toMillis(ttlInSeconds);
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public long ttlInMillis() {
+            return expiresAt - createdAt;
+        }
+
+        public boolean shouldRefresh(long now) {
+            return now >= createdAt + (long) (ttlInMillis() * REFRESH_AHEAD_FACTOR);
+        }
+
+        public boolean isTooStale(long now) {
+            return now >= expiresAt + ttlInMillis();
+        }
+    }
+
+    private final LoadingCache<K, Entry<V>> cache;
+
+    public RefreshAheadCache(final Loader<K, V> loader, Executor refreshExecutor, long maximumSize, long maxTtlInSeconds) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(maxTtlInSeconds * 2, TimeUnit.SECONDS) // backstop, real expiration is per entry
+                .build(CacheLoader.asyncReloading(new CacheLoader<K, Entry<V>>() {
+                    @Override
+                    public Entry<V> load(K key) throws Exception {
+                        return loader.load(key);
+                    }
+                }, refreshExecutor));
+    }
+
+    public V get(K key) {
+        try {
+            Entry<V> entry = cache.getUnchecked(key);
+
+            final long now = System.currentTimeMillis();
+            if (entry.shouldRefresh(now)) {
+                if (entry.isTooStale(now)) {
+                    LOG.trace("Entry is too stale, reload synchronously, key: {}", key);
+                    cache.invalidate(key);
+                    entry = cache.getUnchecked(key);
+                } else {
+                    LOG.trace("Refresh entry in background, key: {}", key);
+                    cache.refresh(key);
+                }
+            }
+            return entry.getValue();
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    public V getIfPresent(K key) {
+        final Entry<V> entry = cache.getIfPresent(key);
+        return entry != null ? entry.getValue() : null;
+    }
+
+    public void put(K key, Entry<V> entry) {
+        cache.put(key, entry);
+    }
+
+    /**
+     * Reloads value in background, current value is served until reload completes (and kept if reload fails).
+     */
+    public void refresh(K key) {
+        cache.refresh(key);
+    }
+
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
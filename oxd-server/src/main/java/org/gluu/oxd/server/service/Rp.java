@@ -1,11 +1,13 @@
 package org.gluu.oxd.server.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang.StringUtils;
 import org.gluu.oxauth.model.register.RegisterRequestParam;
 import org.gluu.oxd.server.model.UmaResource;
+import org.gluu.oxd.server.model.UmaResourceIndex;
 
 import java.io.Serializable;
 import java.util.*;
@@ -188,6 +190,9 @@ public class Rp implements Serializable {
     @JsonProperty(value = "sync_client_period_in_seconds")
     private Integer syncClientPeriodInSeconds;
 
+    @JsonIgnore
+    private transient volatile UmaResourceIndex umaResourceIndex;
+
     public Rp() {
     }
 
@@ -250,7 +255,8 @@ public class Rp implements Serializable {
         this.rptCreatedAt = conf.rptCreatedAt;
         this.rptAsJwt = conf.rptAsJwt;
 
-        this.umaProtectedResources = conf.umaProtectedResources;
+        this.umaProtectedResources = conf.umaProtectedResources != null ? Lists.newArrayList(conf.umaProtectedResources) : null;
+        this.umaResourceIndex = conf.umaResourceIndex;
         this.oxdRpProgrammingLanguage = conf.oxdRpProgrammingLanguage;
         this.accessTokenAsJwt = conf.accessTokenAsJwt;
         this.accessTokenSigningAlg = conf.accessTokenSigningAlg;
@@ -681,6 +687,14 @@ public class Rp implements Serializable {
 
     public void setUmaProtectedResources(List<UmaResource> umaProtectedResources) {
         this.umaProtectedResources = umaProtectedResources;
+        this.umaResourceIndex = null;
+    }
+
+    /**
+     * Must be called after protected resources are changed (uma_rs_protect, uma_rs_modify).
+     */
+    public void rebuildUmaResourceIndex() {
+        this.umaResourceIndex = new UmaResourceIndex(getUmaProtectedResources());
     }
 
     public String getOxdRpProgrammingLanguage() {
@@ -772,19 +786,12 @@ public class Rp implements Serializable {
     }
 
     public UmaResource umaResource(String path, String httpMethod) {
-        List<UmaResource> copy = Lists.newArrayList(umaProtectedResources);
-        Collections.reverse(copy);
-
-        for (UmaResource resource : copy) {
-            if (path.equalsIgnoreCase(resource.getPath()) && resource.getHttpMethods() != null) {
-                for (String http : resource.getHttpMethods()) {
-                    if (http.equalsIgnoreCase(httpMethod)) {
-                        return resource;
-                    }
-                }
-            }
+        UmaResourceIndex index = umaResourceIndex;
+        if (index == null) { // rp loaded from storage, index is built once and then reused
+            index = new UmaResourceIndex(getUmaProtectedResources());
+            umaResourceIndex = index;
         }
-        return null;
+        return index.find(path, httpMethod);
     }
 
     public String getLogoUri() {
@@ -1,22 +1,63 @@
 package org.gluu.oxd.server.service;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
-import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.Inject;
 import org.apache.commons.lang.StringUtils;
+import org.gluu.oxd.common.CoreUtils;
+import org.gluu.oxd.common.ErrorResponseCode;
+import org.gluu.oxd.server.HttpException;
 import org.gluu.oxd.server.OxdServerConfiguration;
+import org.gluu.oxd.server.model.RpToken;
 import org.gluu.oxd.server.persistence.PersistenceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 
 /**
+ * RP cache bounded by rp_cache_max_size (must be greater than 0). Cached RP is reloaded from storage in background
+ * rp_cache_expiration_in_minutes after it was written (current RP is served until reload completes), RPs listed in
+ * rp_cache_pinned_oxd_ids are never evicted by size.
+ * <p>
+ * Lower-cased client_id to oxd_id index is kept in memory and in storage (so it also covers RPs which are not cached),
+ * it is maintained on create/update/remove and rebuilt at startup.
+ * <p>
+ * Cached RP is a snapshot which must not be modified in place. Changes are made with {@link #update(String, Function)}
+ * which applies function to a copy and atomically swaps it in (compare-and-swap), so readers never lock and never see
+ * half-modified RP and concurrent writers do not overwrite each other's changes.
+ * <p>
+ * Token state (PAT, OAuth token, RPT) is persisted separately from RP with expiration of token, so token updates
+ * ({@link #updateTokens(String, Function)}) do not rewrite whole RP.
+ * <p>
+ * If rp_write_behind_enabled=true, updates are not written on request thread but go through {@link RpWriteBehindQueue}
+ * which coalesces updates of the same RP and writes them on dedicated thread.
+ *
  * @author Yuriy Zabrovarnyy
  */
 
@@ -27,7 +68,16 @@ public class RpService {
      */
     private static final Logger LOG = LoggerFactory.getLogger(RpService.class);
 
-    private static Cache<String, Rp> rpCache;
+    private final LoadingCache<String, Rp> rpCache;
+
+    private final ExecutorService refreshExecutor;
+
+    private final Striped<Lock> persistLocks = Striped.lock(64);
+
+    private final RpWriteBehindQueue writeBehindQueue;
+
+    private final ConcurrentMap<String, String> clientIdIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> oxdIdToClientId = new ConcurrentHashMap<>();
 
     private ValidationService validationService;
 
@@ -35,48 +85,345 @@ public class RpService {
 
     @Inject
     public RpService(ValidationService validationService, PersistenceService persistenceService, ConfigurationService configurationService) {
-
-        rpCache = CacheBuilder.newBuilder()
-                .expireAfterWrite(configurationService.get() != null ? configurationService.get().getRpCacheExpirationInMinutes() : 60, TimeUnit.MINUTES)
-                .build();
+        final OxdServerConfiguration configuration = configurationService.get() != null ? configurationService.get() : new OxdServerConfiguration();
+        final Set<String> pinnedOxdIds = configuration.getRpCachePinnedOxdIds() != null ? Sets.newHashSet(configuration.getRpCachePinnedOxdIds()) : Sets.<String>newHashSet();
+        // updates are swapped in cache, RP which is not kept in cache could never be updated
+        Preconditions.checkArgument(configuration.getRpCacheMaxSize() > 0, "rp_cache_max_size must be greater than 0, rp_cache_max_size: %s", configuration.getRpCacheMaxSize());
 
         this.validationService = validationService;
         this.persistenceService = persistenceService;
+        this.writeBehindQueue = configuration.getRpWriteBehindEnabled() != null && configuration.getRpWriteBehindEnabled() ?
+                new RpWriteBehindQueue(new RpWriteBehindQueue.Writer() {
+                    @Override
+                    public void write(String oxdId, Rp previous, Rp latest, boolean full) {
+                        writeBehind(oxdId, previous, latest, full);
+                    }
+                }, configuration.getRpWriteBehindDelayInMillis(), configuration.getRpWriteBehindBatchSize(),
+                        configuration.getRpWriteBehindMaxSize(), configuration.getRpWriteBehindMaxRetryDelayInMillis()) : null;
+        this.refreshExecutor = Executors.newFixedThreadPool(Math.max(configuration.getRpCacheRefreshThreads(), 1), CoreUtils.daemonThreadFactory());
+        this.rpCache = CacheBuilder.newBuilder()
+                .maximumWeight(configuration.getRpCacheMaxSize())
+                .weigher(new Weigher<String, Rp>() {
+                    @Override
+                    public int weigh(String oxdId, Rp rp) {
+                        return pinnedOxdIds.contains(oxdId) ? 0 : 1; // entries with zero weight are not evicted by size
+                    }
+                })
+                .refreshAfterWrite(configuration.getRpCacheExpirationInMinutes() > 0 ? configuration.getRpCacheExpirationInMinutes() : 60, TimeUnit.MINUTES)
+                .recordStats()
+                .build(new CacheLoader<String, Rp>() {
+                    @Override
+                    public Rp load(String oxdId) {
+                        final Rp rp = loadRp(oxdId);
+                        if (rp == null) {
+                            throw new RpNotFoundException(oxdId);
+                        }
+                        return rp;
+                    }
+
+                    @Override
+                    public ListenableFuture<Rp> reload(final String oxdId, final Rp oldRp) {
+                        final ListenableFutureTask<Rp> task = ListenableFutureTask.create(new Callable<Rp>() {
+                            @Override
+                            public Rp call() {
+                                final Rp rp = loadRp(oxdId);
+                                if (rp == null) {
+                                    LOG.trace("Rp is not found in storage during refresh, keep cached rp, oxdId: " + oxdId);
+                                    return oldRp;
+                                }
+                                return rp;
+                            }
+                        });
+                        try {
+                            refreshExecutor.execute(task);
+                        } catch (Exception e) {
+                            LOG.trace("Failed to schedule rp refresh, oxdId: " + oxdId, e);
+                            return Futures.immediateFuture(oldRp);
+                        }
+                        return task;
+                    }
+                });
+    }
+
+    /**
+     * Reads RP and its token state (which is persisted separately) from storage.
+     */
+    private Rp loadRp(String oxdId) {
+        final Rp pending = writeBehindQueue != null ? writeBehindQueue.getPending(oxdId) : null;
+        if (pending != null) {
+            return pending; // storage is not updated yet
+        }
+        final Rp rp = persistenceService.getRp(oxdId);
+        if (rp != null) {
+            applyTokens(rp);
+        }
+        return rp;
+    }
+
+    private void applyTokens(Rp rp) {
+        for (RpToken token : persistenceService.getRpTokens(rp.getOxdId())) {
+            token.applyTo(rp);
+        }
+    }
+
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+        if (writeBehindQueue != null) {
+            writeBehindQueue.shutdown();
+        }
+    }
+
+    /**
+     * Writes all pending changes if write-behind is enabled.
+     */
+    public void flush() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.flush(true);
+        }
     }
 
     public void removeAllRps() {
         rpCache.invalidateAll();
+        if (writeBehindQueue != null) {
+            writeBehindQueue.discardAll();
+        }
+        clientIdIndex.clear();
+        oxdIdToClientId.clear();
         persistenceService.removeAllRps();
     }
 
     public void load() {
         for (Rp rp : persistenceService.getRps()) {
+            applyTokens(rp);
             put(rp);
+            indexClientId(rp, false);
         }
+        persistenceService.rebuildClientIdIndex(Maps.newHashMap(clientIdIndex));
     }
 
     public Rp getRp(String oxdId) {
         Preconditions.checkNotNull(oxdId);
         Preconditions.checkState(!Strings.isNullOrEmpty(oxdId));
 
-        Rp rp = rpCache.getIfPresent(oxdId);
-        if (rp == null) {
-            rp = persistenceService.getRp(oxdId);
-            if (rp != null) {
-                rpCache.put(oxdId, rp);
-            }
-        }
+        Rp rp = find(oxdId);
         rp = validationService.validate(rp);
         return rp;
     }
 
+    private Rp find(String oxdId) {
+        try {
+            return rpCache.getUnchecked(oxdId);
+        } catch (UncheckedExecutionException e) {
+            if (!(e.getCause() instanceof RpNotFoundException)) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return all RPs from storage (not only cached ones) together with cached RPs which storage can't list (e.g. redis
+     * RPs which are not in oxd_id index yet)
+     */
     public Map<String, Rp> getRps() {
+        final Map<String, Rp> rps = Maps.newHashMap();
+        for (Rp rp : persistenceService.getRps()) {
+            rps.put(rp.getOxdId(), rp);
+        }
+        for (Map.Entry<String, Rp> entry : rpCache.asMap().entrySet()) {
+            rps.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        if (writeBehindQueue != null) {
+            rps.putAll(writeBehindQueue.getPending());
+        }
+        return rps;
+    }
+
+    /**
+     * @return snapshot of currently cached RPs
+     */
+    public Map<String, Rp> getCachedRps() {
         return Maps.newHashMap(rpCache.asMap());
     }
 
+    public CacheStats getCacheStats() {
+        return rpCache.stats();
+    }
+
+    public void registerMetrics(MetricRegistry registry) {
+        registry.register(MetricRegistry.name("rp", "cache", "hits"), (Gauge<Long>) () -> rpCache.stats().hitCount());
+        registry.register(MetricRegistry.name("rp", "cache", "misses"), (Gauge<Long>) () -> rpCache.stats().missCount());
+        registry.register(MetricRegistry.name("rp", "cache", "evictions"), (Gauge<Long>) () -> rpCache.stats().evictionCount());
+        registry.register(MetricRegistry.name("rp", "cache", "load-time-average"), (Gauge<Double>) () -> rpCache.stats().averageLoadPenalty());
+        registry.register(MetricRegistry.name("rp", "cache", "size"), (Gauge<Long>) rpCache::size);
+        if (writeBehindQueue != null) {
+            writeBehindQueue.registerMetrics(registry);
+        }
+    }
+
+    /**
+     * Replaces RP with given one. Prefer {@link #update(String, Function)} for changes of existing RP.
+     */
     public void update(Rp rp) {
+        final Rp previous = rpCache.getIfPresent(rp.getOxdId());
         put(rp);
-        persistenceService.update(rp);
+        if (writeBehindQueue != null) {
+            indexClientId(rp, true);
+            writeBehindQueue.enqueue(rp.getOxdId(), previous, rp, true);
+        } else {
+            persist(rp.getOxdId(), rp);
+        }
+    }
+
+    /**
+     * Atomically updates RP. Function gets a copy of current RP snapshot and returns new RP (usually the same modified
+     * copy). If RP was changed concurrently, function is applied again to the new snapshot, so it must not have side
+     * effects other than modification of given copy.
+     *
+     * @return new RP snapshot
+     * @throws HttpException if RP is not found
+     */
+    public Rp update(String oxdId, Function<Rp, Rp> function) {
+        final Rp[] swapped = compareAndSwap(oxdId, function);
+        if (swapped[1] != swapped[0]) {
+            if (writeBehindQueue != null) {
+                indexClientId(swapped[1], true); // index is kept up to date right away
+                writeBehindQueue.enqueue(oxdId, swapped[0], swapped[1], true);
+            } else {
+                persist(oxdId, swapped[1]);
+            }
+        }
+        return swapped[1];
+    }
+
+    /**
+     * Same as {@link #update(String, Function)} but for changes of token state only (PAT, OAuth token, RPT): only
+     * changed tokens are written to storage, RP itself is not rewritten.
+     */
+    public Rp updateTokens(String oxdId, Function<Rp, Rp> function) {
+        final Rp[] swapped = compareAndSwap(oxdId, function);
+        if (swapped[1] != swapped[0]) {
+            if (writeBehindQueue != null) {
+                writeBehindQueue.enqueue(oxdId, swapped[0], swapped[1], false);
+            } else {
+                persistTokens(oxdId, swapped[0], swapped[1]);
+            }
+        }
+        return swapped[1];
+    }
+
+    /**
+     * @return previous and new snapshot (the same instance twice if function did not change anything)
+     */
+    private Rp[] compareAndSwap(String oxdId, Function<Rp, Rp> function) {
+        Preconditions.checkState(!Strings.isNullOrEmpty(oxdId));
+
+        while (true) {
+            final Rp current = find(oxdId);
+            if (current == null) {
+                throw new HttpException(ErrorResponseCode.INVALID_OXD_ID);
+            }
+
+            final Rp updated = function.apply(new Rp(current));
+            if (updated == null || updated == current) {
+                return new Rp[]{current, current};
+            }
+            if (rpCache.asMap().replace(oxdId, current, updated)) {
+                return new Rp[]{current, updated};
+            }
+            LOG.trace("Rp is modified concurrently, re-apply update, oxdId: {}", oxdId);
+        }
+    }
+
+    public Rp updateTokensSilently(String oxdId, Function<Rp, Rp> function) {
+        try {
+            return updateTokens(oxdId, function);
+        } catch (Exception e) {
+            LOG.error("Failed to update tokens of rp, oxdId: " + oxdId, e);
+            return null;
+        }
+    }
+
+    public Rp updateSilently(String oxdId, Function<Rp, Rp> function) {
+        try {
+            return update(oxdId, function);
+        } catch (Exception e) {
+            LOG.error("Failed to update rp, oxdId: " + oxdId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes latest snapshot of RP, lock makes sure that older snapshot does not overwrite newer one in storage.
+     *
+     * @throws IllegalStateException if storage failed to write RP (so write-behind queue keeps and retries it)
+     */
+    private void persist(String oxdId, Rp rp) {
+        final Lock lock = persistLocks.get(oxdId);
+        lock.lock();
+        try {
+            final Rp latest = rpCache.getIfPresent(oxdId);
+            final Rp toPersist = latest != null ? latest : rp;
+            if (!persistenceService.update(withoutTokens(toPersist))) {
+                throw new IllegalStateException("Failed to persist rp, oxdId: " + oxdId);
+            }
+            for (RpToken.Type type : RpToken.Type.values()) {
+                final RpToken token = RpToken.of(toPersist, type);
+                if (token != null && !persistenceService.putRpToken(token)) {
+                    throw new IllegalStateException("Failed to persist rp token, oxdId: " + oxdId + ", type: " + type);
+                }
+            }
+            indexClientId(toPersist, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called by write-behind queue. Changes discarded while write was scheduled (RP is removed) are skipped.
+     */
+    private void writeBehind(String oxdId, Rp previous, Rp latest, boolean full) {
+        final Lock lock = persistLocks.get(oxdId);
+        lock.lock();
+        try {
+            if (writeBehindQueue.getPending(oxdId) == null) {
+                LOG.trace("Rp changes are discarded, skip write, oxdId: " + oxdId);
+                return;
+            }
+            if (full) {
+                persist(oxdId, latest);
+            } else {
+                persistTokens(oxdId, previous != null ? previous : new Rp(), latest);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void persistTokens(String oxdId, Rp previous, Rp rp) {
+        final Lock lock = persistLocks.get(oxdId);
+        lock.lock();
+        try {
+            final Rp latest = rpCache.getIfPresent(oxdId);
+            final Rp toPersist = latest != null ? latest : rp;
+            for (RpToken.Type type : RpToken.Type.values()) {
+                final RpToken token = RpToken.of(toPersist, type);
+                if (token != null && RpToken.isChanged(RpToken.of(previous, type), token) && !persistenceService.putRpToken(token)) {
+                    throw new IllegalStateException("Failed to persist rp token, oxdId: " + oxdId + ", type: " + type);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return copy of rp without token state, tokens are persisted separately with their own expiration
+     */
+    private static Rp withoutTokens(Rp rp) {
+        final Rp copy = new Rp(rp);
+        RpToken.clear(copy);
+        return copy;
     }
 
     public void updateSilently(Rp rp) {
@@ -94,7 +441,14 @@ public class RpService {
 
         if (rpCache.getIfPresent(rp.getOxdId()) == null) {
             put(rp);
-            persistenceService.create(rp);
+            persistenceService.create(withoutTokens(rp));
+            for (RpToken.Type type : RpToken.Type.values()) {
+                final RpToken token = RpToken.of(rp, type);
+                if (token != null) {
+                    persistenceService.putRpToken(token);
+                }
+            }
+            indexClientId(rp, true);
         } else {
             LOG.error("RP already exists in database, oxd_id: " + rp.getOxdId());
         }
@@ -106,20 +460,88 @@ public class RpService {
     }
 
     public boolean remove(String oxdId) {
+        if (writeBehindQueue != null) {
+            final Lock lock = persistLocks.get(oxdId);
+            lock.lock();
+            try {
+                writeBehindQueue.discard(oxdId);
+            } finally {
+                lock.unlock();
+            }
+        }
         boolean ok = persistenceService.remove(oxdId);
         if (ok) {
             rpCache.invalidate(oxdId);
+
+            final String clientId = oxdIdToClientId.remove(oxdId);
+            if (clientId != null) {
+                clientIdIndex.remove(clientId, oxdId);
+                persistenceService.removeClientIdIndex(clientId);
+            }
         }
         return ok;
     }
 
     public Rp getRpByClientId(String clientId) {
-        for (Rp rp : rpCache.asMap().values()) {
-            if (rp.getClientId().equalsIgnoreCase(clientId)) {
-                LOG.trace("Found rp by client_id: " + clientId + ", rp: " + rp);
-                return rp;
+        final String normalizedClientId = normalizeClientId(clientId);
+        if (normalizedClientId == null) {
+            return null;
+        }
+
+        String oxdId = clientIdIndex.get(normalizedClientId);
+        if (oxdId == null) {
+            oxdId = persistenceService.getOxdIdByClientId(normalizedClientId); // e.g. registered by another oxd node
+            if (oxdId == null) {
+                return null;
+            }
+        }
+
+        final Rp rp = find(oxdId);
+        if (rp == null || !normalizedClientId.equals(normalizeClientId(rp.getClientId()))) {
+            LOG.trace("Removed stale client_id index entry, client_id: " + clientId + ", oxd_id: " + oxdId);
+            clientIdIndex.remove(normalizedClientId, oxdId);
+            persistenceService.removeClientIdIndex(normalizedClientId);
+            return null;
+        }
+
+        indexClientId(rp, false);
+        LOG.trace("Found rp by client_id: " + clientId + ", rp: " + rp);
+        return rp;
+    }
+
+    /**
+     * Indexes client_id of rp, storage is updated only if client_id of rp is changed (or not indexed yet).
+     */
+    private void indexClientId(Rp rp, boolean persist) {
+        final String oxdId = rp.getOxdId();
+        final String clientId = normalizeClientId(rp.getClientId());
+        final String previous = clientId != null ? oxdIdToClientId.put(oxdId, clientId) : oxdIdToClientId.remove(oxdId);
+        if (StringUtils.equals(previous, clientId)) {
+            return;
+        }
+
+        if (previous != null) {
+            clientIdIndex.remove(previous, oxdId);
+            if (persist) {
+                persistenceService.removeClientIdIndex(previous);
             }
         }
-        return null;
+        if (clientId != null) {
+            clientIdIndex.put(clientId, oxdId);
+            if (persist) {
+                persistenceService.putClientIdIndex(clientId, oxdId);
+            }
+        }
+    }
+
+    private static String normalizeClientId(String clientId) {
+        return StringUtils.isNotBlank(clientId) ? clientId.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static class RpNotFoundException extends RuntimeException {
+
+        private RpNotFoundException(String oxdId) {
+            super("Rp is not found, oxdId: " + oxdId, null, false, false);
+        }
     }
 }
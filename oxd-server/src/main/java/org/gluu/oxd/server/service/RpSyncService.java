@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.HttpMethod;
+import java.io.IOException;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -20,12 +21,15 @@ public class RpSyncService {
 
     private PersistenceService persistenceService;
 
+    private HttpService httpService;
+
     private static final Logger LOG = LoggerFactory.getLogger(RpSyncService.class);
 
     @Inject
-    public RpSyncService(RpService rpService, PersistenceService persistenceService) {
+    public RpSyncService(RpService rpService, PersistenceService persistenceService, HttpService httpService) {
         this.rpService = rpService;
         this.persistenceService = persistenceService;
+        this.httpService = httpService;
     }
 
     public static boolean shouldSync(Rp rp) {
@@ -50,7 +54,7 @@ public class RpSyncService {
     }
     //this method added to skip the vadidations while running test cases.
     public Rp getRpTest(String oxdId) {
-        Rp rp = rpService.getRps().get(oxdId);
+        Rp rp = rpService.getCachedRps().get(oxdId);
         if (!shouldSync(rp))
             return rp;
 
@@ -65,14 +69,22 @@ public class RpSyncService {
             // read client with oxauth-client and update Rp object
             final RegisterResponse response = readClientFromRp(rp.getClientRegistrationClientUri(), rp.getClientRegistrationAccessToken());
 
-            boolean isRpUpdated = RegisterResponseMapper.fillRp(rp, response);
-            if (isRpUpdated) {
-                rp.setLastSynced(new Date());
-                persistenceService.update(rp);
-                LOG.debug("Successfully synced Rp object from OP. Rp: " + rp.toString());
+            final Rp synced = rpService.update(rp.getOxdId(), current -> {
+                try {
+                    if (!RegisterResponseMapper.fillRp(current, response)) {
+                        return null; // nothing is changed
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                current.setLastSynced(new Date());
+                return current;
+            });
+            if (synced != rp) {
+                LOG.debug("Successfully synced Rp object from OP. Rp: " + synced.toString());
             }
 
-            return rp;
+            return synced;
         } catch (Exception e) {
             LOG.error("Error in sync Rp object from OP: ", e);
             return rp;
@@ -84,6 +96,7 @@ public class RpSyncService {
         request.setHttpMethod(HttpMethod.GET);
 
         final RegisterClient registerClient = new RegisterClient(clientRegistrationClientUri);
+        registerClient.setExecutor(httpService.getClientExecutor());
         registerClient.setRequest(request);
         return registerClient.exec();
     }
@@ -0,0 +1,239 @@
+package org.gluu.oxd.server.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.gluu.oxd.common.CoreUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue of RP changes (rp_write_behind_enabled=true).
+ * <p>
+ * Changes of the same oxd_id made within rp_write_behind_delay_in_millis are coalesced into one write of the latest
+ * RP snapshot. Dedicated thread flushes due changes in batches of rp_write_behind_batch_size, failed writes stay
+ * in queue and are retried with exponential backoff (up to rp_write_behind_max_retry_delay_in_millis) while other RPs
+ * are still flushed. If queue holds rp_write_behind_max_size RPs, caller writes its change itself (backpressure).
+ * Everything still pending is flushed by {@link #shutdown()}.
+ */
+public class RpWriteBehindQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RpWriteBehindQueue.class);
+
+    public interface Writer {
+
+        /**
+         * @param previous snapshot which was persisted before first coalesced change
+         * @param latest   latest snapshot
+         * @param full     whether RP itself has to be written (otherwise only token state is changed)
+         */
+        void write(String oxdId, Rp previous, Rp latest, boolean full);
+    }
+
+    private final ConcurrentMap<String, Entry> pending = new ConcurrentHashMap<>();
+    private final Writer writer;
+    private final long delayInMillis;
+    private final int batchSize;
+    private final int maxSize;
+    private final long maxRetryDelayInMillis;
+    private final ScheduledExecutorService executor;
+    private final Object flushLock = new Object();
+    private final Timer flushLatency = new Timer();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong synchronousWrites = new AtomicLong();
+
+    public RpWriteBehindQueue(Writer writer, long delayInMillis, int batchSize, int maxSize, long maxRetryDelayInMillis) {
+        this.writer = writer;
+        this.delayInMillis = Math.max(delayInMillis, 1);
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxSize = Math.max(maxSize, 1);
+        this.maxRetryDelayInMillis = Math.max(maxRetryDelayInMillis, this.delayInMillis);
+        this.executor = CoreUtils.createExecutor();
+        this.executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush(false);
+                } catch (Throwable e) {
+                    LOG.error("Failed to flush rp write-behind queue.", e);
+                }
+            }
+        }, this.delayInMillis, this.delayInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void enqueue(String oxdId, Rp previous, Rp latest, boolean full) {
+        final Entry entry = new Entry(previous, latest, full, System.currentTimeMillis());
+        if (pending.putIfAbsent(oxdId, entry) != null) {
+            pending.merge(oxdId, entry, Entry::merge);
+            coalesced.incrementAndGet();
+        } else if (pending.size() > maxSize) {
+            // backpressure: queue is full, so change is written on caller thread (it stays in queue if write fails)
+            synchronousWrites.incrementAndGet();
+            synchronized (flushLock) {
+                final Entry current = pending.get(oxdId);
+                if (current != null) {
+                    write(oxdId, current);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return latest not yet persisted snapshot of RP or null if there are no pending changes
+     */
+    public Rp getPending(String oxdId) {
+        final Entry entry = pending.get(oxdId);
+        return entry != null ? entry.latest : null;
+    }
+
+    public Map<String, Rp> getPending() {
+        final Map<String, Rp> result = new HashMap<>();
+        for (Map.Entry<String, Entry> entry : pending.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().latest);
+        }
+        return result;
+    }
+
+    /**
+     * Drops pending changes of RP (e.g. RP is removed).
+     */
+    public void discard(String oxdId) {
+        pending.remove(oxdId);
+    }
+
+    public void discardAll() {
+        pending.clear();
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Each pending change is tried at most once per flush, failed change stays in queue and does not block others.
+     *
+     * @param all whether to flush all pending changes (regardless of retry backoff) or only those which are older than
+     *            delay and due for retry
+     */
+    public void flush(boolean all) {
+        synchronized (flushLock) {
+            final Set<String> tried = new HashSet<>();
+            while (true) {
+                final long now = System.currentTimeMillis();
+                final List<String> batch = new ArrayList<>(batchSize);
+                for (Map.Entry<String, Entry> entry : pending.entrySet()) {
+                    if (!tried.contains(entry.getKey()) && (all || entry.getValue().isDue(now, delayInMillis))) {
+                        batch.add(entry.getKey());
+                        if (batch.size() >= batchSize) {
+                            break;
+                        }
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+
+                for (String oxdId : batch) {
+                    tried.add(oxdId);
+                    final Entry entry = pending.get(oxdId);
+                    if (entry != null) {
+                        write(oxdId, entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Entry is removed from queue only after it is written, so RP is never read from storage while its change is in
+     * flight. If RP was changed during write, merged entry stays in queue and is written again.
+     */
+    private boolean write(String oxdId, Entry entry) {
+        try {
+            writer.write(oxdId, entry.previous, entry.latest, entry.full);
+            pending.remove(oxdId, entry);
+            flushLatency.update(System.currentTimeMillis() - entry.enqueuedAt, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            final Entry failed = pending.computeIfPresent(oxdId, (key, current) -> current.failed(System.currentTimeMillis(), delayInMillis, maxRetryDelayInMillis));
+            LOG.error("Failed to persist rp, keep it in write-behind queue, oxdId: " + oxdId + ", failures: " + (failed != null ? failed.failures : 0), e);
+            return false;
+        }
+    }
+
+    /**
+     * Stops flush thread and flushes all pending changes.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        flush(true);
+        if (!pending.isEmpty()) {
+            LOG.error("Failed to flush rp write-behind queue on shutdown, lost changes of rps: " + pending.keySet());
+        }
+    }
+
+    public void registerMetrics(MetricRegistry registry) {
+        registry.register(MetricRegistry.name("rp", "write-behind", "queue-depth"), (Gauge<Integer>) pending::size);
+        registry.register(MetricRegistry.name("rp", "write-behind", "flush-latency"), flushLatency);
+        registry.register(MetricRegistry.name("rp", "write-behind", "coalesced"), (Gauge<Long>) coalesced::get);
+        registry.register(MetricRegistry.name("rp", "write-behind", "failures"), (Gauge<Long>) failures::get);
+        registry.register(MetricRegistry.name("rp", "write-behind", "synchronous-writes"), (Gauge<Long>) synchronousWrites::get);
+    }
+
+    private static class Entry {
+
+        private final Rp previous;
+        private final Rp latest;
+        private final boolean full;
+        private final long enqueuedAt;
+        private final int failures;
+        private final long retryAt;
+
+        private Entry(Rp previous, Rp latest, boolean full, long enqueuedAt) {
+            this(previous, latest, full, enqueuedAt, 0, 0);
+        }
+
+        private Entry(Rp previous, Rp latest, boolean full, long enqueuedAt, int failures, long retryAt) {
+            this.previous = previous;
+            this.latest = latest;
+            this.full = full;
+            this.enqueuedAt = enqueuedAt;
+            this.failures = failures;
+            this.retryAt = retryAt;
+        }
+
+        private boolean isDue(long now, long delayInMillis) {
+            return now - enqueuedAt >= delayInMillis && now >= retryAt;
+        }
+
+        /**
+         * Merges this (older) entry with newer one: keeps first previous snapshot, enqueue time and retry state, takes
+         * latest snapshot.
+         */
+        private Entry merge(Entry newer) {
+            return new Entry(previous, newer.latest, full || newer.full, enqueuedAt, failures, retryAt);
+        }
+
+        /**
+         * @return the same entry to be retried after delay doubled with each failure (but not longer than max delay)
+         */
+        private Entry failed(long now, long delayInMillis, long maxRetryDelayInMillis) {
+            final long retryDelay = Math.min(delayInMillis << Math.min(failures, 20), maxRetryDelayInMillis);
+            return new Entry(previous, latest, full, enqueuedAt, failures + 1, now + retryDelay);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.gluu.oxd.server.service;
+
+import com.google.common.base.Throwables;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Coalesces concurrent calls with the same key: only one call is executed, all concurrent callers wait for it and
+ * share its result (or exception). Next call after completion is executed again.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Callable<V> callable) {
+        final FutureTask<V> task = new FutureTask<>(callable);
+        final FutureTask<V> existing = inFlight.putIfAbsent(key, task);
+        if (existing != null) {
+            return get(existing);
+        }
+
+        try {
+            task.run();
+        } finally {
+            inFlight.remove(key, task);
+        }
+        return get(task);
+    }
+
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    private static <V> V get(FutureTask<V> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+}
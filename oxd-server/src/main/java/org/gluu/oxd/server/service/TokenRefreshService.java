@@ -0,0 +1,129 @@
+package org.gluu.oxd.server.service;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import org.gluu.oxd.common.CoreUtils;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes PAT and OAuth token of RP in background token_refresh_margin_in_seconds before expiration, so request
+ * does not have to wait for new token. Refresh token is used if it is available, otherwise token is obtained again.
+ * <p>
+ * Only tokens of RPs used within token_refresh_idle_rp_timeout_in_seconds are refreshed. Refresh moment of each RP is
+ * shifted by stable jitter (0..token_refresh_jitter_in_seconds) so refreshes of many RPs are spread in time.
+ * <p>
+ * Disabled if token_refresh_margin_in_seconds <= 0.
+ */
+public class TokenRefreshService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TokenRefreshService.class);
+
+    public enum TokenType {
+        PAT, OAUTH
+    }
+
+    private final OxdServerConfiguration configuration;
+    private final Provider<UmaTokenService> umaTokenService;
+    private final RpService rpService;
+    /**
+     * oxd_id -> last time token of RP was requested
+     */
+    private final Map<String, Long> lastUsed = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    public TokenRefreshService(OxdServerConfiguration configuration, Provider<UmaTokenService> umaTokenService, RpService rpService) {
+        this.configuration = configuration;
+        this.umaTokenService = umaTokenService;
+        this.rpService = rpService;
+    }
+
+    public synchronized void start() {
+        final int interval = configuration.getTokenRefreshCheckIntervalInSeconds();
+        if (!isEnabled() || interval <= 0 || scheduler != null) {
+            return;
+        }
+
+        scheduler = CoreUtils.createExecutor();
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refreshExpiringTokens();
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+        LOG.debug("Started token refresh scheduler, interval: {}s, margin: {}s", interval, configuration.getTokenRefreshMarginInSeconds());
+    }
+
+    public synchronized void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return configuration.getTokenRefreshMarginInSeconds() > 0;
+    }
+
+    public void touch(String oxdId) {
+        if (isEnabled()) {
+            lastUsed.put(oxdId, System.currentTimeMillis());
+        }
+    }
+
+    public void refreshExpiringTokens() {
+        final long now = System.currentTimeMillis();
+        final long idleTimeout = TimeUnit.SECONDS.toMillis(configuration.getTokenRefreshIdleRpTimeoutInSeconds());
+        final Map<String, Rp> rps = rpService.getCachedRps();
+
+        for (Map.Entry<String, Long> entry : lastUsed.entrySet()) {
+            final String oxdId = entry.getKey();
+            final Rp rp = rps.get(oxdId);
+            if (rp == null || (idleTimeout > 0 && now - entry.getValue() > idleTimeout)) {
+                LOG.trace("Skip token refresh for idle or removed rp, oxdId: {}", oxdId);
+                lastUsed.remove(oxdId);
+                continue;
+            }
+
+            try {
+                if (shouldRefresh(oxdId, TokenType.PAT, rp.getPat(), rp.getPatCreatedAt(), rp.getPatExpiresIn(), now)) {
+                    LOG.trace("Refresh PAT in background, oxdId: {}", oxdId);
+                    umaTokenService.get().refreshPat(oxdId);
+                }
+                if (shouldRefresh(oxdId, TokenType.OAUTH, rp.getOauthToken(), rp.getOauthTokenCreatedAt(), rp.getOauthTokenExpiresIn(), now)) {
+                    LOG.trace("Refresh OAuth token in background, oxdId: {}", oxdId);
+                    umaTokenService.get().refreshOAuthToken(oxdId);
+                }
+            } catch (Exception e) {
+                LOG.error("Failed to refresh token in background, oxdId: " + oxdId, e);
+            }
+        }
+    }
+
+    boolean shouldRefresh(String oxdId, TokenType type, String token, Date createdAt, Integer expiresIn, long now) {
+        if (token == null || createdAt == null || expiresIn == null || expiresIn <= 0) {
+            return false; // token was never obtained, it will be obtained on first request
+        }
+        final long expiresAt = createdAt.getTime() + TimeUnit.SECONDS.toMillis(expiresIn);
+        final long margin = Math.min(configuration.getTokenRefreshMarginInSeconds() + jitterInSeconds(oxdId, type), expiresIn / 2); // short-lived token is refreshed in the middle of lifetime
+        final long refreshAt = expiresAt - TimeUnit.SECONDS.toMillis(margin);
+        return now >= refreshAt;
+    }
+
+    int jitterInSeconds(String oxdId, TokenType type) {
+        final int jitter = configuration.getTokenRefreshJitterInSeconds();
+        if (jitter <= 0) {
+            return 0;
+        }
+        return Math.abs((oxdId + type).hashCode() % (jitter + 1));
+    }
+}
@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -52,6 +53,11 @@ public class UmaTokenService {
     private final OxdServerConfiguration configuration;
     private final StateService stateService;
     private final OpClientFactory opClientFactory;
+    private final TokenRefreshService tokenRefreshService;
+    /**
+     * In-flight token acquisitions per oxd_id and token type (UmaTokenService is singleton).
+     */
+    private final SingleFlight<String, Token> tokenFlight = new SingleFlight<>();
 
     @Inject
     public UmaTokenService(RpService rpService,
@@ -61,7 +67,8 @@ public class UmaTokenService {
                            HttpService httpService,
                            OxdServerConfiguration configuration,
                            StateService stateService,
-                           OpClientFactory opClientFactory
+                           OpClientFactory opClientFactory,
+                           TokenRefreshService tokenRefreshService
     ) {
         this.rpService = rpService;
         this.rpSyncService = rpSyncService;
@@ -71,6 +78,7 @@ public class UmaTokenService {
         this.configuration = configuration;
         this.stateService = stateService;
         this.opClientFactory = opClientFactory;
+        this.tokenRefreshService = tokenRefreshService;
     }
 
     public RpGetRptResponse getRpt(RpGetRptParams params) throws Exception {
@@ -140,19 +148,21 @@ public class UmaTokenService {
             if (status.getActive()) {
                 LOG.debug("RPT is successfully obtained from AS. RPT: {}", tokenResponse.getAccessToken());
 
-                rp.setRpt(tokenResponse.getAccessToken());
-                rp.setRptTokenType(tokenResponse.getTokenType());
-                rp.setRptPct(tokenResponse.getPct());
-                rp.setRptUpgraded(tokenResponse.getUpgraded());
-                rp.setRptCreatedAt(new Date(status.getIssuedAt() * 1000));
-                rp.setRptExpiresAt(new Date(status.getExpiresAt() * 1000));
-                rpService.updateSilently(rp);
+                rpService.updateTokensSilently(rp.getOxdId(), current -> {
+                    current.setRpt(tokenResponse.getAccessToken());
+                    current.setRptTokenType(tokenResponse.getTokenType());
+                    current.setRptPct(tokenResponse.getPct());
+                    current.setRptUpgraded(tokenResponse.getUpgraded());
+                    current.setRptCreatedAt(new Date(status.getIssuedAt() * 1000));
+                    current.setRptExpiresAt(new Date(status.getExpiresAt() * 1000));
+                    return current;
+                });
 
                 RpGetRptResponse result = new RpGetRptResponse();
-                result.setRpt(rp.getRpt());
-                result.setTokenType(rp.getRptTokenType());
-                result.setPct(rp.getRptPct());
-                result.setUpdated(rp.getRptUpgraded());
+                result.setRpt(tokenResponse.getAccessToken());
+                result.setTokenType(tokenResponse.getTokenType());
+                result.setPct(tokenResponse.getPct());
+                result.setUpdated(tokenResponse.getUpgraded());
                 return result;
             }
         } else {
@@ -173,70 +183,211 @@ public class UmaTokenService {
 
     public Pat getPat(String oxdId) {
         validationService.notBlankOxdId(oxdId);
+        tokenRefreshService.touch(oxdId);
 
         Rp rp = rpSyncService.getRp(oxdId);
 
-        if (rp.getPat() != null && rp.getPatCreatedAt() != null && rp.getPatExpiresIn() != null && rp.getPatExpiresIn() > 0) {
-            Calendar expiredAt = Calendar.getInstance();
-            expiredAt.setTime(rp.getPatCreatedAt());
-            expiredAt.add(Calendar.SECOND, rp.getPatExpiresIn());
+        if (isValid(rp.getPat(), rp.getPatCreatedAt(), rp.getPatExpiresIn())) {
+            LOG.debug("PAT from site configuration, PAT: " + rp.getPat());
+            return new Pat(rp.getPat(), "", rp.getPatExpiresIn());
+        }
+
+        return obtainPat(oxdId);
+    }
 
-            if (!CoreUtils.isExpired(expiredAt.getTime())) {
-                LOG.debug("PAT from site configuration, PAT: " + rp.getPat());
-                return new Pat(rp.getPat(), "", rp.getPatExpiresIn());
+    /**
+     * Obtains new PAT. Concurrent calls for the same RP are coalesced into one request to AS.
+     */
+    public Pat obtainPat(final String oxdId) {
+        return (Pat) tokenFlight.execute(flightKey(oxdId, UmaScopeType.PROTECTION), new Callable<Token>() {
+            @Override
+            public Token call() {
+                return doObtainPat(oxdId);
             }
-        }
+        });
+    }
 
+    /**
+     * Called when AS rejected PAT (e.g. 401). If PAT was already renewed by concurrent request returns it, otherwise
+     * obtains new PAT.
+     */
+    public Pat renewPat(String oxdId, String rejectedPat) {
+        Rp rp = rpSyncService.getRp(oxdId);
+        if (rejectedPat != null && !rejectedPat.equals(rp.getPat()) && isValid(rp.getPat(), rp.getPatCreatedAt(), rp.getPatExpiresIn())) {
+            LOG.debug("PAT is already renewed, PAT: " + rp.getPat());
+            return new Pat(rp.getPat(), "", rp.getPatExpiresIn());
+        }
         return obtainPat(oxdId);
     }
 
-    public Pat obtainPat(String oxdId) {
+    private Pat doObtainPat(String oxdId) {
         Rp rp = rpSyncService.getRp(oxdId);
         Token token = obtainToken(oxdId, UmaScopeType.PROTECTION, rp);
 
-        rp.setPat(token.getToken());
-        rp.setPatCreatedAt(new Date());
-        rp.setPatExpiresIn(token.getExpiresIn());
-        rp.setPatRefreshToken(token.getRefreshToken());
-
-        rpService.updateSilently(rp);
+        rpService.updateTokensSilently(oxdId, current -> {
+            current.setPat(token.getToken());
+            current.setPatCreatedAt(new Date());
+            current.setPatExpiresIn(token.getExpiresIn());
+            current.setPatRefreshToken(token.getRefreshToken());
+            return current;
+        });
 
         return (Pat) token;
     }
 
     public Token getOAuthToken(String oxdId) {
         validationService.notBlankOxdId(oxdId);
+        tokenRefreshService.touch(oxdId);
 
         Rp rp = rpSyncService.getRp(oxdId);
 
-        if (rp.getOauthToken() != null && rp.getOauthTokenCreatedAt() != null && rp.getOauthTokenExpiresIn() != null && rp.getOauthTokenExpiresIn() > 0) {
-            Calendar expiredAt = Calendar.getInstance();
-            expiredAt.setTime(rp.getOauthTokenCreatedAt());
-            expiredAt.add(Calendar.SECOND, rp.getOauthTokenExpiresIn());
+        if (isValid(rp.getOauthToken(), rp.getOauthTokenCreatedAt(), rp.getOauthTokenExpiresIn())) {
+            LOG.debug("OauthToken from site configuration, OauthToken: " + rp.getOauthToken());
+            return new Token(rp.getOauthToken(), "", rp.getOauthTokenExpiresIn());
+        }
 
-            if (!CoreUtils.isExpired(expiredAt.getTime())) {
-                LOG.debug("OauthToken from site configuration, OauthToken: " + rp.getOauthToken());
-                return new Token(rp.getOauthToken(), "", rp.getOauthTokenExpiresIn());
+        return obtainOauthToken(oxdId);
+    }
+
+    /**
+     * Obtains new OAuth token. Concurrent calls for the same RP are coalesced into one request to AS.
+     */
+    public Token obtainOauthToken(final String oxdId) {
+        return tokenFlight.execute(flightKey(oxdId, null), new Callable<Token>() {
+            @Override
+            public Token call() {
+                return doObtainOauthToken(oxdId);
             }
-        }
+        });
+    }
 
+    /**
+     * Called when AS rejected OAuth token (e.g. 401). If token was already renewed by concurrent request returns it,
+     * otherwise obtains new token.
+     */
+    public Token renewOAuthToken(String oxdId, String rejectedToken) {
+        Rp rp = rpSyncService.getRp(oxdId);
+        if (rejectedToken != null && !rejectedToken.equals(rp.getOauthToken()) && isValid(rp.getOauthToken(), rp.getOauthTokenCreatedAt(), rp.getOauthTokenExpiresIn())) {
+            LOG.debug("OauthToken is already renewed, OauthToken: " + rp.getOauthToken());
+            return new Token(rp.getOauthToken(), "", rp.getOauthTokenExpiresIn());
+        }
         return obtainOauthToken(oxdId);
     }
 
-    public Token obtainOauthToken(String oxdId) {
+    private Token doObtainOauthToken(String oxdId) {
         Rp rp = rpSyncService.getRp(oxdId);
         Token token = obtainToken(oxdId, null, rp);
 
-        rp.setOauthToken(token.getToken());
-        rp.setOauthTokenCreatedAt(new Date());
-        rp.setOauthTokenExpiresIn(token.getExpiresIn());
-        rp.setOauthTokenRefreshToken(token.getRefreshToken());
-
-        rpService.updateSilently(rp);
+        rpService.updateTokensSilently(oxdId, current -> {
+            current.setOauthToken(token.getToken());
+            current.setOauthTokenCreatedAt(new Date());
+            current.setOauthTokenExpiresIn(token.getExpiresIn());
+            current.setOauthTokenRefreshToken(token.getRefreshToken());
+            return current;
+        });
 
         return token;
     }
 
+    private static boolean isValid(String token, Date createdAt, Integer expiresIn) {
+        if (token != null && createdAt != null && expiresIn != null && expiresIn > 0) {
+            Calendar expiredAt = Calendar.getInstance();
+            expiredAt.setTime(createdAt);
+            expiredAt.add(Calendar.SECOND, expiresIn);
+
+            return !CoreUtils.isExpired(expiredAt.getTime());
+        }
+        return false;
+    }
+
+    private static String flightKey(String oxdId, UmaScopeType scopeType) {
+        return oxdId + "_" + (scopeType == UmaScopeType.PROTECTION ? "pat" : "oauth");
+    }
+
+    /**
+     * Refreshes PAT with refresh token if it is available, otherwise obtains new PAT.
+     */
+    public Pat refreshPat(final String oxdId) {
+        return (Pat) tokenFlight.execute(flightKey(oxdId, UmaScopeType.PROTECTION), new Callable<Token>() {
+            @Override
+            public Token call() {
+                Rp rp = rpSyncService.getRp(oxdId);
+                Token token = refreshToken(oxdId, UmaScopeType.PROTECTION, rp.getPatRefreshToken(), rp);
+                if (token == null) {
+                    return doObtainPat(oxdId);
+                }
+
+                rpService.updateTokensSilently(oxdId, current -> {
+                    current.setPat(token.getToken());
+                    current.setPatCreatedAt(new Date());
+                    current.setPatExpiresIn(token.getExpiresIn());
+                    if (StringUtils.isNotBlank(token.getRefreshToken())) {
+                        current.setPatRefreshToken(token.getRefreshToken());
+                    }
+                    return current;
+                });
+
+                return token;
+            }
+        });
+    }
+
+    /**
+     * Refreshes OAuth token with refresh token if it is available, otherwise obtains new token.
+     */
+    public Token refreshOAuthToken(final String oxdId) {
+        return tokenFlight.execute(flightKey(oxdId, null), new Callable<Token>() {
+            @Override
+            public Token call() {
+                Rp rp = rpSyncService.getRp(oxdId);
+                Token token = refreshToken(oxdId, null, rp.getOauthTokenRefreshToken(), rp);
+                if (token == null) {
+                    return doObtainOauthToken(oxdId);
+                }
+
+                rpService.updateTokensSilently(oxdId, current -> {
+                    current.setOauthToken(token.getToken());
+                    current.setOauthTokenCreatedAt(new Date());
+                    current.setOauthTokenExpiresIn(token.getExpiresIn());
+                    if (StringUtils.isNotBlank(token.getRefreshToken())) {
+                        current.setOauthTokenRefreshToken(token.getRefreshToken());
+                    }
+                    return current;
+                });
+
+                return token;
+            }
+        });
+    }
+
+    /**
+     * @return refreshed token or null if there is no refresh token or AS rejected it
+     */
+    private Token refreshToken(String oxdId, UmaScopeType scopeType, String refreshToken, Rp rp) {
+        if (StringUtils.isBlank(refreshToken)) {
+            return null;
+        }
+        try {
+            OpenIdConfigurationResponse discovery = discoveryService.getConnectDiscoveryResponseByOxdId(oxdId);
+
+            final TokenClient tokenClient = opClientFactory.createTokenClient(discovery.getTokenEndpoint());
+            tokenClient.setExecutor(httpService.getClientExecutor());
+            final TokenResponse response = tokenClient.execRefreshToken(scopesAsString(scopeType), refreshToken, rp.getClientId(), rp.getClientSecret());
+            if (response != null && Util.allNotBlank(response.getAccessToken())) {
+                final Token token = TokenFactory.newToken(scopeType);
+                token.setToken(response.getAccessToken());
+                token.setRefreshToken(response.getRefreshToken());
+                token.setExpiresIn(response.getExpiresIn());
+                LOG.trace("Refreshed token with refresh_token: " + token);
+                return token;
+            }
+            LOG.debug("Failed to refresh token with refresh_token, scopeType: " + scopeType + ", response: " + response);
+        } catch (Exception e) {
+            LOG.debug("Failed to refresh token with refresh_token, scopeType: " + scopeType, e);
+        }
+        return null;
+    }
+
     private Token obtainToken(String oxdId, UmaScopeType scopeType, Rp rp) {
 
         OpenIdConfigurationResponse discovery = discoveryService.getConnectDiscoveryResponseByOxdId(oxdId);
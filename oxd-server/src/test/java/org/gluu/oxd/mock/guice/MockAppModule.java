@@ -27,6 +27,13 @@ public class MockAppModule extends AbstractModule {
         bind(MigrationService.class).in(Singleton.class);
         bind(DiscoveryService.class).in(Singleton.class);
         bind(ValidationService.class).in(Singleton.class);
+        bind(PermissionTicketCache.class).in(Singleton.class);
+        bind(OpRequestExecutor.class).in(Singleton.class);
+        bind(TokenRefreshService.class).in(Singleton.class);
+        bind(UmaTokenService.class).in(Singleton.class);
+        bind(ClientTokenCache.class).in(Singleton.class);
+        bind(CryptoProviderService.class).in(Singleton.class);
+        bind(ClientAssertionCache.class).in(Singleton.class);
         bind(StateService.class).in(Singleton.class);
         bind(OpClientFactory.class).to(OpClientFactoryMockImpl.class).in(Singleton.class);
     }
@@ -7,6 +7,7 @@ import org.glassfish.jersey.message.internal.OutboundMessageContext;
 import org.gluu.oxauth.client.*;
 import org.gluu.oxauth.client.uma.UmaClientFactory;
 import org.gluu.oxauth.client.uma.UmaMetadataService;
+import org.gluu.oxauth.client.uma.UmaPermissionService;
 import org.gluu.oxauth.model.common.TokenType;
 import org.gluu.oxauth.model.crypto.signature.RSAPublicKey;
 import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
@@ -215,6 +216,10 @@ public class OpClientFactoryMockImpl implements OpClientFactory {
         when(umaClientFactory.createMetadataService(any(), any())).thenReturn(umaMetadataService);
         when(umaMetadataService.getMetadata()).thenReturn(umaMetadata);
 
+        UmaPermissionService umaPermissionService = mock(UmaPermissionService.class);
+        when(umaClientFactory.createPermissionService(any(UmaMetadata.class), any(ClientExecutor.class))).thenReturn(umaPermissionService);
+        when(umaPermissionService.registerPermission(any(), any())).thenReturn(new PermissionTicket("d457e3de-30dd-400a-8698-2b98472b7a40"));
+
         return umaClientFactory;
     }
 
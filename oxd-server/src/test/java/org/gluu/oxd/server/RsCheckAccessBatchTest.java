@@ -0,0 +1,51 @@
+package org.gluu.oxd.server;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxd.client.ClientInterface;
+import org.gluu.oxd.common.params.RsCheckAccessBatchItem;
+import org.gluu.oxd.common.params.RsCheckAccessBatchParams;
+import org.gluu.oxd.common.response.RegisterSiteResponse;
+import org.gluu.oxd.common.response.RsCheckAccessBatchResponse;
+import org.gluu.oxd.common.response.RsCheckAccessResponse;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+
+public class RsCheckAccessBatchTest {
+
+    @Parameters({"host", "opHost", "redirectUrls", "rsProtect"})
+    @Test
+    public void test(String host, String opHost, String redirectUrls, String rsProtect) throws IOException {
+        ClientInterface client = Tester.newClient(host);
+
+        RegisterSiteResponse site = RegisterSiteTest.registerSite(client, opHost, redirectUrls);
+
+        RsProtectTest.protectResources(client, site, UmaFullTest.resourceList(rsProtect).getResources());
+
+        final RsCheckAccessBatchParams params = new RsCheckAccessBatchParams();
+        params.setOxdId(site.getOxdId());
+        params.setRpt("dummy");
+        params.setResources(Lists.newArrayList(
+                new RsCheckAccessBatchItem("/ws/phone", "GET"),
+                new RsCheckAccessBatchItem("/ws/phone", "DELETE")));
+
+        final RsCheckAccessBatchResponse response = client.umaRsCheckAccessBatch(Tester.getAuthorization(), params);
+
+        // dummy rpt can't grant access, so both resources are denied with one ticket
+        assertNotNull(response);
+        assertEquals("denied", response.getAccess());
+        assertTrue(StringUtils.isNotBlank(response.getTicket()));
+        assertEquals(2, response.getResults().size());
+        for (RsCheckAccessResponse result : response.getResults()) {
+            assertEquals("denied", result.getAccess());
+            assertEquals(response.getTicket(), result.getTicket());
+        }
+    }
+}
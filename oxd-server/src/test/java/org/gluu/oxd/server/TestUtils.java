@@ -15,6 +15,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.testng.AssertJUnit.assertTrue;
 
@@ -50,6 +51,15 @@ public class TestUtils {
         return Jackson2.createJsonMapper().readValue(entityAsString, ErrorResponse.class);
     }
 
+    /**
+     * Default configuration adjusted by customizer, for unit tests which do not need yml file.
+     */
+    public static OxdServerConfiguration configuration(Consumer<OxdServerConfiguration> customizer) {
+        final OxdServerConfiguration configuration = new OxdServerConfiguration();
+        customizer.accept(configuration);
+        return configuration;
+    }
+
     public static OxdServerConfiguration parseConfiguration(String pathToYaml) throws IOException, ConfigurationException {
 
         File file = new File(pathToYaml);
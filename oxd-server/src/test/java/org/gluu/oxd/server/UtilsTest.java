@@ -7,7 +7,11 @@ import static org.testng.AssertJUnit.assertEquals;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -38,6 +42,23 @@ public class UtilsTest {
         assertEquals(Utils.hoursDiff(today, calendar.getTime()), 13);
     }
 
+    @Test
+    public void cacheTtlInSeconds() {
+        assertEquals(-1, Utils.cacheTtlInSeconds(null));
+        assertEquals(-1, Utils.cacheTtlInSeconds(new HashMap<String, List<String>>()));
+        assertEquals(3600, Utils.cacheTtlInSeconds(header("Cache-Control", "public, max-age=3600")));
+        assertEquals(120, Utils.cacheTtlInSeconds(header("cache-control", "max-age=120")));
+        assertEquals(0, Utils.cacheTtlInSeconds(header("Cache-Control", "no-store")));
+        assertEquals(0, Utils.cacheTtlInSeconds(header("Expires", "0")));
+        assertEquals(0, Utils.cacheTtlInSeconds(header("Expires", "Thu, 01 Dec 1994 16:00:00 GMT")));
+    }
+
+    private static Map<String, List<String>> header(String name, String value) {
+        final Map<String, List<String>> headers = new HashMap<>();
+        headers.put(name, Collections.singletonList(value));
+        return headers;
+    }
+
     public static void main(String[] args) {
         String s = "{\"command\":\"register_site\",\"params\" : {\"authorization_redirect_uri\" : \"https://opencart.gl/index.php?route=module/socl_login&logout_from_gluu=aruesa\",\"post_logout_redirect_uri\" : \"https://opencart.gl/index.php?route=module/socl_login&logout_from_gluu=exist\",\"application_type\" : \"web\",\"redirect_uris\" :[\"https://opencart.gl/index.php?route=module/socl_login\"],\"acr_values\" : [],\"scope\" : [\"openid\",\"profile\",\"email\",\"address\",\"clientinfo\",\"mobile_phone\",\"phone\"],\"client_jwks_uri\" : null,\"client_token_endpoint_auth_method\" : null,\"client_request_uris\" : null,\"contacts\" : [\"vlad.karapetyan.1988@mail.ru\"],\"grant_types\" : [\"authorization_code\"],\"response_types\" : [\"code\"],\"client_logout_uris\" : [\"https://opencart.gl/index.php?route=module/socl_login&logout_from_gluu=exist\"]}}";
         System.out.println(s.length());
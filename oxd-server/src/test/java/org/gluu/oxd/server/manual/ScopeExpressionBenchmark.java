@@ -0,0 +1,66 @@
+package org.gluu.oxd.server.manual;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.uma.JsonLogicNodeParser;
+import org.gluu.oxd.server.model.CompiledScopeExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares scope expression check of uma-rs-check-access: parsing of expression on each call (previous implementation)
+ * vs evaluation of expression compiled once.
+ * <p>
+ * Run main method (not part of test suite).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScopeExpressionBenchmark {
+
+    private static final String EXPRESSION = "{\"rule\":{\"and\":[{\"or\":[{\"var\":0},{\"var\":1}]},{\"var\":2}]}," +
+            "\"data\":[\"http://photoz.example.com/dev/actions/all\",\"http://photoz.example.com/dev/actions/add\",\"http://photoz.example.com/dev/actions/internalClient\"]}";
+
+    private List<String> permissionScopes;
+    private CompiledScopeExpression compiled;
+
+    @Setup
+    public void setUp() {
+        permissionScopes = Lists.newArrayList("http://photoz.example.com/dev/actions/add", "http://photoz.example.com/dev/actions/internalClient");
+        compiled = CompiledScopeExpression.compile(EXPRESSION);
+    }
+
+    @Benchmark
+    public boolean parseOnEachCall() {
+        if (!JsonLogicNodeParser.isNodeValid(EXPRESSION)) {
+            return false;
+        }
+        final List<String> requiredScopes = JsonLogicNodeParser.parseNode(EXPRESSION).getData();
+        return !Collections.disjoint(requiredScopes, permissionScopes);
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return compiled.evaluate(permissionScopes);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ScopeExpressionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,45 @@
+package org.gluu.oxd.server.model;
+
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+public class CompiledScopeExpressionTest {
+
+    private static final String EXPRESSION = "{\"rule\":{\"and\":[{\"or\":[{\"var\":0},{\"var\":1}]},{\"var\":2}]},\"data\":[\"all\",\"add\",\"internal\"]}";
+
+    @Test
+    public void evaluate() {
+        final CompiledScopeExpression compiled = CompiledScopeExpression.compile(EXPRESSION);
+
+        assertEquals(Lists.newArrayList("all", "add", "internal"), compiled.getData());
+        assertTrue(compiled.evaluate(Lists.newArrayList("all", "internal")));
+        assertTrue(compiled.evaluate(Lists.newArrayList("add", "internal", "other")));
+        assertFalse(compiled.evaluate(Lists.newArrayList("all", "add")));
+        assertFalse(compiled.evaluate(Collections.<String>emptyList()));
+        assertFalse(compiled.evaluate(null));
+    }
+
+    @Test
+    public void varAsArray() {
+        final CompiledScopeExpression compiled = CompiledScopeExpression.compile("{\"rule\":{\"or\":[{\"var\":[0]},{\"var\":[\"1\"]}]},\"data\":[\"read\",\"write\"]}");
+
+        assertTrue(compiled.evaluate(Lists.newArrayList("write")));
+        assertFalse(compiled.evaluate(Lists.newArrayList("delete")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unsupportedOperator() {
+        CompiledScopeExpression.compile("{\"rule\":{\"!\":[{\"var\":0}]},\"data\":[\"read\"]}");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void varOutOfBounds() {
+        CompiledScopeExpression.compile("{\"rule\":{\"var\":3},\"data\":[\"read\"]}");
+    }
+}
@@ -0,0 +1,57 @@
+package org.gluu.oxd.server.model;
+
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+public class UmaResourceIndexTest {
+
+    @Test
+    public void exactPath() {
+        final UmaResourceIndex index = new UmaResourceIndex(Lists.newArrayList(
+                resource("1", "/ws/phone", "GET"),
+                resource("2", "/ws/phone", "POST", "PUT")));
+
+        assertEquals("1", index.find("/ws/phone", "GET").getId());
+        assertEquals("1", index.find("/WS/Phone", "get").getId());
+        assertEquals("2", index.find("/ws/phone", "PUT").getId());
+        assertNull(index.find("/ws/phone", "DELETE"));
+        assertNull(index.find("/ws/phone/1", "GET"));
+    }
+
+    @Test
+    public void lastResourceWins() {
+        final UmaResourceIndex index = new UmaResourceIndex(Lists.newArrayList(
+                resource("1", "/ws/phone", "GET"),
+                resource("2", "/ws/phone", "GET")));
+
+        assertEquals("2", index.find("/ws/phone", "GET").getId());
+    }
+
+    @Test
+    public void templates() {
+        final UmaResourceIndex index = new UmaResourceIndex(Lists.newArrayList(
+                resource("param", "/ws/phone/{id}", "GET"),
+                resource("literal", "/ws/phone/list", "GET"),
+                resource("nested", "/ws/{type}/{id}/details", "GET"),
+                resource("wildcard", "/static/*", "GET")));
+
+        assertEquals("param", index.find("/ws/phone/123", "GET").getId());
+        assertEquals("literal", index.find("/ws/phone/list", "GET").getId());
+        assertEquals("nested", index.find("/ws/phone/123/details", "GET").getId());
+        assertEquals("wildcard", index.find("/static/css/main.css", "GET").getId());
+        assertEquals("param", index.find("/ws/phone/{id}", "GET").getId());
+        assertNull(index.find("/ws/phone/123/other", "GET"));
+        assertNull(index.find("/ws/phone/123", "POST"));
+    }
+
+    private static UmaResource resource(String id, String path, String... httpMethods) {
+        final UmaResource resource = new UmaResource();
+        resource.setId(id);
+        resource.setPath(path);
+        resource.setHttpMethods(Lists.newArrayList(httpMethods));
+        return resource;
+    }
+}
@@ -0,0 +1,86 @@
+package org.gluu.oxd.server.op;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxd.common.introspection.CorrectRptIntrospectionResponse;
+import org.gluu.oxd.common.introspection.CorrectUmaPermission;
+import org.gluu.oxd.server.HttpException;
+import org.gluu.oxd.server.model.UmaResource;
+import org.gluu.oxd.server.service.OpRequestExecutor;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+public class RsProtectOperationTest {
+
+    @Test
+    public void resourceWhichFailedToBeRemovedIsKept() {
+        final List<UmaResource> resources = Lists.newArrayList(resource("id1"), resource("id2"), resource("id3"));
+        final List<OpRequestExecutor.Result<String>> results = Lists.newArrayList(
+                OpRequestExecutor.Result.success("id1"),
+                OpRequestExecutor.Result.<String>failure(new IllegalStateException("AS is not available")),
+                OpRequestExecutor.Result.success("id3"));
+        final Map<String, String> errors = new HashMap<>();
+
+        final Set<String> removedIds = RsProtectOperation.removedResourceIds(resources, results, errors);
+
+        assertEquals(2, removedIds.size());
+        assertTrue(removedIds.contains("id1"));
+        assertTrue(removedIds.contains("id3"));
+        assertFalse(removedIds.contains("id2"));
+        assertEquals(1, errors.size());
+        assertTrue(errors.get("id2").contains("AS is not available"));
+    }
+
+    @Test
+    public void compilableScopeExpressionIsAccepted() {
+        RsProtectOperation.validateScopeExpression("{\"rule\":{\"and\":[{\"or\":[{\"var\":0},{\"var\":1}]},{\"var\":2}]},\"data\":[\"read\",\"write\",\"view\"]}");
+    }
+
+    @Test(expectedExceptions = HttpException.class)
+    public void scopeExpressionWithOperatorsNotSupportedByCompilerIsRejected() {
+        RsProtectOperation.validateScopeExpression("{\"rule\":{\"if\":[{\"var\":0},{\"var\":0},{\"var\":1}]},\"data\":[\"read\",\"write\"]}");
+    }
+
+    @Test(expectedExceptions = HttpException.class)
+    public void invalidScopeExpressionIsRejected() {
+        RsProtectOperation.validateScopeExpression("{\"rule\":{\"and\":[{\"var\":5}]},\"data\":[\"read\"]}");
+    }
+
+    @Test
+    public void accessIsCheckedByScopeExpression() {
+        final UmaResource resource = resource("id1");
+        resource.setScopeExpressions(Lists.newArrayList("{\"rule\":{\"and\":[{\"var\":0},{\"var\":1}]},\"data\":[\"read\",\"write\"]}"));
+
+        assertTrue(RsCheckAccessOperation.isGranted(resource, "rpt", introspection("id1", "read", "write")));
+        assertFalse(RsCheckAccessOperation.isGranted(resource, "rpt", introspection("id1", "write")));
+    }
+
+    @Test
+    public void accessIsDeniedForStoredScopeExpressionWhichCanNotBeCompiled() {
+        final UmaResource resource = resource("id1");
+        resource.setScopeExpressions(Lists.newArrayList("{\"rule\":{\"if\":[{\"var\":0},{\"var\":0},{\"var\":1}]},\"data\":[\"read\",\"write\"]}"));
+
+        assertFalse(RsCheckAccessOperation.isGranted(resource, "rpt", introspection("id1", "read", "write")));
+        assertFalse(RsCheckAccessOperation.isGranted(new UmaResource(resource), "rpt", introspection("id1", "read", "write")));
+    }
+
+    private static CorrectRptIntrospectionResponse introspection(String resourceId, String... scopes) {
+        final CorrectRptIntrospectionResponse response = new CorrectRptIntrospectionResponse();
+        response.setActive(true);
+        response.setPermissions(Lists.newArrayList(new CorrectUmaPermission(resourceId, Lists.newArrayList(scopes))));
+        return response;
+    }
+
+    private static UmaResource resource(String id) {
+        final UmaResource resource = new UmaResource();
+        resource.setId(id);
+        return resource;
+    }
+}
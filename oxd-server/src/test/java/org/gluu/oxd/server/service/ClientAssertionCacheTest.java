@@ -0,0 +1,75 @@
+package org.gluu.oxd.server.service;
+
+import org.apache.commons.codec.binary.Base64;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.testng.AssertJUnit.assertEquals;
+
+public class ClientAssertionCacheTest {
+
+    @Test
+    public void assertionIsReusedUntilExpirationMargin() throws Exception {
+        final ClientAssertionCache cache = newCache();
+        final AtomicInteger signed = new AtomicInteger();
+        final String key = ClientAssertionCache.key("clientId", "https://op.example.com/token", "RS256", "kid1");
+
+        final String first = cache.get(key, null, signer(signed, 300));
+        final String second = cache.get(key, null, signer(signed, 300));
+
+        assertEquals(1, signed.get());
+        assertEquals(first, second);
+
+        cache.get(ClientAssertionCache.key("clientId", "https://op.example.com/token", "RS256", "kid2"), null, signer(signed, 300));
+        assertEquals(2, signed.get());
+    }
+
+    @Test
+    public void assertionCloseToExpirationIsNotReused() throws Exception {
+        final ClientAssertionCache cache = newCache();
+        final AtomicInteger signed = new AtomicInteger();
+        final String key = ClientAssertionCache.key("clientId", "https://op.example.com/token", "RS256", "kid1");
+
+        cache.get(key, null, signer(signed, 10)); // less than default margin of 30 seconds
+        cache.get(key, null, signer(signed, 10));
+
+        assertEquals(2, signed.get());
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        final ClientAssertionCache cache = new ClientAssertionCache(new OxdServerConfiguration());
+        final AtomicInteger signed = new AtomicInteger();
+        final String key = ClientAssertionCache.key("clientId", "https://op.example.com/token", "RS256", "kid1");
+
+        cache.get(key, null, signer(signed, 300));
+        cache.get(key, null, signer(signed, 300));
+
+        assertEquals(2, signed.get());
+    }
+
+    private static ClientAssertionCache newCache() {
+        return new ClientAssertionCache(configuration(c -> c.setClientAssertionCacheEnabled(true)));
+    }
+
+    private static Callable<String> signer(final AtomicInteger signed, final int expiresInSeconds) {
+        return new Callable<String>() {
+            @Override
+            public String call() {
+                final long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + expiresInSeconds;
+                return encode("{\"alg\":\"none\",\"typ\":\"JWT\"}") + "."
+                        + encode("{\"iss\":\"clientId\",\"jti\":\"" + signed.incrementAndGet() + "\",\"exp\":" + exp + "}") + ".";
+            }
+        };
+    }
+
+    private static String encode(String json) {
+        return Base64.encodeBase64URLSafeString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,93 @@
+package org.gluu.oxd.server.service;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxd.common.params.GetClientTokenParams;
+import org.gluu.oxd.common.response.GetClientTokenResponse;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+public class ClientTokenCacheTest {
+
+    @Test
+    public void tokenIsReusedForSameClientAndScopes() throws Exception {
+        final ClientTokenCache cache = newCache();
+        final AtomicInteger requests = new AtomicInteger();
+
+        final GetClientTokenResponse first = cache.get(ClientTokenCache.key(params("secret", "uma_protection", "profile")), loader(requests, 3600));
+        final GetClientTokenResponse second = cache.get(ClientTokenCache.key(params("secret", "profile", "uma_protection")), loader(requests, 3600));
+
+        assertEquals(1, requests.get());
+        assertEquals(first.getAccessToken(), second.getAccessToken());
+        assertTrue(second.getExpiresIn() <= 3600);
+    }
+
+    @Test
+    public void tokenIsNotSharedBetweenDifferentSecretsOrScopes() throws Exception {
+        final ClientTokenCache cache = newCache();
+        final AtomicInteger requests = new AtomicInteger();
+
+        cache.get(ClientTokenCache.key(params("secret", "profile")), loader(requests, 3600));
+        cache.get(ClientTokenCache.key(params("anotherSecret", "profile")), loader(requests, 3600));
+        cache.get(ClientTokenCache.key(params("secret", "profile", "email")), loader(requests, 3600));
+
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void tokenWithoutExpiresInIsNotCached() throws Exception {
+        final ClientTokenCache cache = newCache();
+        final AtomicInteger requests = new AtomicInteger();
+        final String key = ClientTokenCache.key(params("secret", "profile"));
+
+        cache.get(key, loader(requests, 0));
+        cache.get(key, loader(requests, 0));
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        final ClientTokenCache cache = new ClientTokenCache(new OxdServerConfiguration());
+        final AtomicInteger requests = new AtomicInteger();
+        final String key = ClientTokenCache.key(params("secret", "profile"));
+
+        assertFalse(cache.isEnabled());
+        cache.get(key, loader(requests, 3600));
+        cache.get(key, loader(requests, 3600));
+
+        assertEquals(2, requests.get());
+    }
+
+    private static ClientTokenCache newCache() {
+        return new ClientTokenCache(configuration(c -> c.setClientTokenCacheEnabled(true)));
+    }
+
+    private static GetClientTokenParams params(String secret, String... scopes) {
+        final GetClientTokenParams params = new GetClientTokenParams();
+        params.setOpHost("https://op.example.com");
+        params.setClientId("clientId");
+        params.setClientSecret(secret);
+        params.setScope(Lists.newArrayList(scopes));
+        return params;
+    }
+
+    private static Callable<GetClientTokenResponse> loader(final AtomicInteger requests, final int expiresIn) {
+        return new Callable<GetClientTokenResponse>() {
+            @Override
+            public GetClientTokenResponse call() {
+                final GetClientTokenResponse response = new GetClientTokenResponse();
+                response.setAccessToken("token" + requests.incrementAndGet());
+                response.setExpiresIn(expiresIn);
+                return response;
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package org.gluu.oxd.server.service;
+
+import org.testng.annotations.Test;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.testng.AssertJUnit.assertEquals;
+
+public class ConfigurationServiceTest {
+
+    @Test
+    public void supportedLoginTokensStorageIsAccepted() {
+        final ConfigurationService configurationService = new ConfigurationService();
+
+        configurationService.setConfiguration(configuration(c -> c.setLoginTokensStorage("none")));
+        assertEquals("none", configurationService.get().getLoginTokensStorage());
+
+        configurationService.setConfiguration(configuration(c -> c.setLoginTokensStorage("RP")));
+        assertEquals("RP", configurationService.get().getLoginTokensStorage());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unknownLoginTokensStorageIsRejected() {
+        new ConfigurationService().setConfiguration(configuration(c -> c.setLoginTokensStorage("session")));
+    }
+}
@@ -0,0 +1,69 @@
+package org.gluu.oxd.server.service;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.testng.annotations.Test;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+public class HttpServiceTest {
+
+    @Test
+    public void hungOpDoesNotBlockRequestsForever() throws Exception {
+        final HttpService httpService = new HttpService(configuration(c -> {
+            c.setHttpClientMaxConnectionsPerRoute(1);
+            c.setHttpClientSocketTimeoutInMillis(2000);
+            c.setHttpClientConnectionRequestTimeoutInMillis(200);
+        }));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try (ServerSocket hungOp = new ServerSocket(0)) { // accepts connections but never responds
+            final String url = "http://localhost:" + hungOp.getLocalPort() + "/.well-known/openid-configuration";
+            final HttpClient client = httpService.getHttpClient();
+
+            final Future<?> first = executor.submit(() -> client.execute(new HttpGet(url))); // takes the only pooled connection
+            final Socket accepted = hungOp.accept();
+
+            final long start = System.currentTimeMillis();
+            try {
+                client.execute(new HttpGet(url));
+                fail("Request must fail when pool is exhausted.");
+            } catch (ConnectionPoolTimeoutException e) {
+                assertTrue(System.currentTimeMillis() - start < 2000); // fails fast, before socket timeout of first request
+            }
+
+            try {
+                first.get(10, TimeUnit.SECONDS);
+                fail("Request to hung OP must time out.");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SocketTimeoutException);
+            }
+            accepted.close();
+        } finally {
+            executor.shutdownNow();
+            httpService.destroy();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void poolIsNotRecreatedAfterDestroy() {
+        final HttpService httpService = new HttpService(new OxdServerConfiguration());
+        httpService.getHttpClient();
+        httpService.destroy();
+
+        httpService.getHttpClient(); // e.g. in-flight background refresh during shutdown
+    }
+}
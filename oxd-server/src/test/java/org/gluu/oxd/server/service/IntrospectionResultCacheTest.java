@@ -0,0 +1,104 @@
+package org.gluu.oxd.server.service;
+
+import org.gluu.oxauth.model.common.IntrospectionResponse;
+import org.gluu.oxd.server.persistence.PersistenceService;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+public class IntrospectionResultCacheTest {
+
+    @Test
+    public void activeResultIsCachedUntilTokenExpiration() {
+        final IntrospectionResultCache<IntrospectionResponse> cache = newCache();
+        final String key = IntrospectionResultCache.key("oxdId", "token");
+
+        cache.put(key, response(true, nowInSeconds() + 30));
+
+        assertNotNull(cache.get(key));
+        assertTrue(cache.get(key).isActive());
+        assertNull(cache.get(IntrospectionResultCache.key("anotherOxdId", "token")));
+    }
+
+    @Test
+    public void expiredTokenIsNotCached() {
+        final IntrospectionResultCache<IntrospectionResponse> cache = newCache();
+        final String key = IntrospectionResultCache.key("oxdId", "expiredToken");
+
+        cache.put(key, response(true, nowInSeconds() - 1));
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void inactiveResultIsCached() {
+        final IntrospectionResultCache<IntrospectionResponse> cache = newCache();
+        final String key = IntrospectionResultCache.key("oxdId", "inactiveToken");
+
+        cache.put(key, response(false, null));
+
+        assertNotNull(cache.get(key));
+        assertFalse(cache.get(key).isActive());
+    }
+
+    @Test
+    public void resultReadFromRedisIsNotCachedLongerThanOnNodeWhichPutIt() throws Exception {
+        final Map<String, String> redis = new ConcurrentHashMap<>();
+        final PersistenceService persistenceService = mock(PersistenceService.class);
+        when(persistenceService.putCacheEntry(anyString(), anyString(), anyInt())).thenAnswer(invocation -> {
+            redis.put(invocation.getArgument(0), invocation.getArgument(1));
+            return true;
+        });
+        when(persistenceService.getCacheEntry(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+
+        final IntrospectionResultCache<IntrospectionResponse> node1 = newRedisCache(persistenceService);
+        final IntrospectionResultCache<IntrospectionResponse> node2 = newRedisCache(persistenceService);
+        final String key = IntrospectionResultCache.key("oxdId", "sharedToken");
+
+        node1.put(key, response(true, nowInSeconds() + 2));
+
+        assertNotNull(node2.get(key));
+        assertTrue(node2.get(key).isActive());
+
+        // redis entry is still there (mock does not expire), absolute expiration from node1 has to be respected
+        Thread.sleep(2100);
+        assertNotNull(redis.get("test_" + key));
+        assertNull(node2.get(key));
+        assertNull(node1.get(key));
+    }
+
+    private static IntrospectionResultCache<IntrospectionResponse> newRedisCache(PersistenceService persistenceService) {
+        return new IntrospectionResultCache<>("test", IntrospectionResponse.class,
+                IntrospectionResponse::isActive, IntrospectionResponse::getExpiresAt, configuration(c -> {
+            c.setStorage("redis");
+            c.setIntrospectionCacheUseRedis(true);
+        }), persistenceService);
+    }
+
+    private static IntrospectionResultCache<IntrospectionResponse> newCache() {
+        return new IntrospectionResultCache<>("test", IntrospectionResponse.class,
+                IntrospectionResponse::isActive, IntrospectionResponse::getExpiresAt, configuration(c -> c.setStorage("h2")), null);
+    }
+
+    private static IntrospectionResponse response(boolean active, Integer expiresAt) {
+        final IntrospectionResponse response = new IntrospectionResponse();
+        response.setActive(active);
+        response.setExpiresAt(expiresAt);
+        return response;
+    }
+
+    private static int nowInSeconds() {
+        return (int) (System.currentTimeMillis() / 1000);
+    }
+}
@@ -0,0 +1,212 @@
+package org.gluu.oxd.server.service;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.gluu.oxauth.client.OpenIdConfigurationResponse;
+import org.gluu.oxauth.model.common.IntrospectionResponse;
+import org.gluu.oxauth.model.crypto.signature.RSAPublicKey;
+import org.gluu.oxd.common.introspection.CorrectRptIntrospectionResponse;
+import org.gluu.oxd.common.introspection.CorrectUmaPermission;
+import org.gluu.oxd.server.op.OpClientFactoryImpl;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.Signature;
+import java.util.Base64;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Local JWT validation (validate_jwt_access_token_locally and validate_jwt_rpt_locally).
+ */
+public class IntrospectionServiceTest {
+
+    private static final String ISSUER = "https://op.example.com";
+    private static final String JWKS_URI = ISSUER + "/jwks";
+    private static final String KID = "kid1";
+    private static final String CLIENT_ID = "clientId";
+
+    private KeyPair keyPair;
+    private KeyPair anotherKeyPair;
+    private Rp rp;
+    private IntrospectionService service;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        anotherKeyPair = generator.generateKeyPair();
+
+        final java.security.interfaces.RSAPublicKey publicKey = (java.security.interfaces.RSAPublicKey) keyPair.getPublic();
+        final PublicOpKeyService keyService = mock(PublicOpKeyService.class);
+        when(keyService.getPublicKey(JWKS_URI, KID)).thenReturn(new RSAPublicKey(publicKey.getModulus(), publicKey.getPublicExponent()));
+
+        rp = new Rp();
+        rp.setClientId(CLIENT_ID);
+
+        final OpenIdConfigurationResponse discovery = mock(OpenIdConfigurationResponse.class);
+        when(discovery.getIssuer()).thenReturn(ISSUER);
+        when(discovery.getJwksUri()).thenReturn(JWKS_URI);
+        final DiscoveryService discoveryService = mock(DiscoveryService.class);
+        when(discoveryService.getConnectDiscoveryResponse(rp)).thenReturn(discovery);
+
+        final ConfigurationService configurationService = new ConfigurationService();
+        configurationService.setConfiguration(configuration(c -> {}));
+
+        service = new IntrospectionService(null, null, discoveryService, new OpClientFactoryImpl(), keyService, configurationService, null);
+    }
+
+    @Test
+    public void validAccessTokenIsIntrospectedLocally() throws Exception {
+        final IntrospectionResponse response = service.introspectJwtTokenLocally(rp, jwt("RS256", KID, claims(), keyPair.getPrivate()));
+
+        assertNotNull(response);
+        assertTrue(response.isActive());
+        assertEquals(CLIENT_ID, response.getClientId());
+        assertEquals(2, response.getScope().size());
+        assertTrue(response.getScope().contains("oxd"));
+        assertTrue(response.getScope().contains("openid"));
+        assertEquals(ISSUER, response.getIssuer());
+        assertNotNull(response.getExpiresAt());
+    }
+
+    @Test
+    public void tokenWithBadSignatureIsInactive() throws Exception {
+        final IntrospectionResponse response = service.introspectJwtTokenLocally(rp, jwt("RS256", KID, claims(), anotherKeyPair.getPrivate()));
+
+        assertNotNull(response);
+        assertFalse(response.isActive());
+    }
+
+    @Test
+    public void tokenOfAnotherIssuerIsInactive() throws Exception {
+        final JSONObject claims = claims();
+        claims.put("iss", "https://another-op.example.com");
+
+        assertFalse(service.introspectJwtTokenLocally(rp, jwt("RS256", KID, claims, keyPair.getPrivate())).isActive());
+    }
+
+    @Test
+    public void expiredTokenIsInactive() throws Exception {
+        final JSONObject claims = claims();
+        claims.put("exp", now() - 10);
+
+        assertFalse(service.introspectJwtTokenLocally(rp, jwt("RS256", KID, claims, keyPair.getPrivate())).isActive());
+    }
+
+    @Test
+    public void tokenWithFutureNbfIsInactive() throws Exception {
+        final JSONObject claims = claims();
+        claims.put("nbf", now() + 60);
+
+        assertFalse(service.introspectJwtTokenLocally(rp, jwt("RS256", KID, claims, keyPair.getPrivate())).isActive());
+    }
+
+    @Test
+    public void tokenIssuedForAnotherClientFallsBackToRemoteIntrospection() throws Exception {
+        final JSONObject claims = claims();
+        claims.put("aud", "anotherClientId");
+
+        assertNull(service.introspectJwtTokenLocally(rp, jwt("RS256", KID, claims, keyPair.getPrivate())));
+    }
+
+    @Test
+    public void unknownKidFallsBackToRemoteIntrospection() throws Exception {
+        assertNull(service.introspectJwtTokenLocally(rp, jwt("RS256", "unknownKid", claims(), keyPair.getPrivate())));
+    }
+
+    @Test
+    public void hmacTokenFallsBackToRemoteIntrospection() throws Exception {
+        final String token = jwt("RS256", KID, claims(), keyPair.getPrivate());
+        final String hmacToken = encode(header("HS256", KID).toString()) + token.substring(token.indexOf('.'));
+
+        assertNull(service.introspectJwtTokenLocally(rp, hmacToken));
+    }
+
+    @Test
+    public void opaqueTokenFallsBackToRemoteIntrospection() {
+        assertNull(service.introspectJwtTokenLocally(rp, "3a5b7c1e-opaque-token"));
+        assertNull(service.introspectRptLocally(rp, "3a5b7c1e-opaque-rpt"));
+    }
+
+    @Test
+    public void rptPermissionsAreTakenFromClaim() throws Exception {
+        final int exp = (int) now() + 300;
+        final JSONObject claims = claims();
+        claims.remove("aud");
+        claims.put("permissions", new JSONArray()
+                .put(new JSONObject().put("resource_id", "resource1").put("resource_scopes", new JSONArray().put("read").put("write")).put("exp", exp))
+                .put(new JSONObject().put("resource_id", "resource2").put("resource_scopes", new JSONArray().put("read"))));
+
+        final CorrectRptIntrospectionResponse response = service.introspectRptLocally(rp, jwt("RS256", KID, claims, keyPair.getPrivate()));
+
+        assertNotNull(response);
+        assertTrue(response.getActive());
+        assertEquals(CLIENT_ID, response.getClientId());
+        assertEquals(2, response.getPermissions().size());
+
+        final CorrectUmaPermission first = response.getPermissions().get(0);
+        assertEquals("resource1", first.getResourceId());
+        assertEquals(2, first.getScopes().size());
+        assertTrue(first.getScopes().contains("write"));
+        assertEquals(Integer.valueOf(exp), first.getExpiresAt());
+        assertEquals("resource2", response.getPermissions().get(1).getResourceId());
+    }
+
+    @Test
+    public void expiredRptIsInactive() throws Exception {
+        final JSONObject claims = claims();
+        claims.put("exp", now() - 10);
+
+        assertFalse(service.introspectRptLocally(rp, jwt("RS256", KID, claims, keyPair.getPrivate())).getActive());
+    }
+
+    private static JSONObject claims() throws Exception {
+        final long now = now();
+        return new JSONObject()
+                .put("iss", ISSUER)
+                .put("aud", CLIENT_ID)
+                .put("client_id", CLIENT_ID)
+                .put("scope", "oxd openid")
+                .put("iat", now)
+                .put("exp", now + 300);
+    }
+
+    private static JSONObject header(String alg, String kid) throws Exception {
+        return new JSONObject().put("typ", "JWT").put("alg", alg).put("kid", kid);
+    }
+
+    private static String jwt(String alg, String kid, JSONObject claims, PrivateKey key) throws Exception {
+        final String signingInput = encode(header(alg, kid).toString()) + "." + encode(claims.toString());
+
+        final Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(key);
+        signature.update(signingInput.getBytes(StandardCharsets.UTF_8));
+        return signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature.sign());
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
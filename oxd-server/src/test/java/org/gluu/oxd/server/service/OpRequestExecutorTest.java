@@ -0,0 +1,104 @@
+package org.gluu.oxd.server.service;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+public class OpRequestExecutorTest {
+
+    @Test
+    public void resultsAreInOrderOfTasksAndFailuresAreIsolated() throws Exception {
+        final OpRequestExecutor executor = newExecutor(4, 2);
+        try {
+            final List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                final int index = i;
+                tasks.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        if (index == 3) {
+                            throw new IllegalStateException("failed " + index);
+                        }
+                        return index;
+                    }
+                });
+            }
+
+            final List<OpRequestExecutor.Result<Integer>> results = executor.invokeAll("https://op.example.com", tasks);
+
+            assertEquals(10, results.size());
+            for (int i = 0; i < 10; i++) {
+                if (i == 3) {
+                    assertFalse(results.get(i).isSuccess());
+                    assertEquals("failed 3", results.get(i).getError().getMessage());
+                } else {
+                    assertTrue(results.get(i).isSuccess());
+                    assertEquals(Integer.valueOf(i), results.get(i).getValue());
+                }
+            }
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void concurrencyIsLimitedPerOp() throws Exception {
+        final OpRequestExecutor executor = newExecutor(8, 2);
+        try {
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                tasks.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        final int current = running.incrementAndGet();
+                        synchronized (maxRunning) {
+                            maxRunning.set(Math.max(maxRunning.get(), current));
+                        }
+                        Thread.sleep(20);
+                        running.decrementAndGet();
+                        return current;
+                    }
+                });
+            }
+
+            executor.invokeAll("https://op.example.com", tasks);
+
+            assertTrue("Max concurrent tasks: " + maxRunning.get(), maxRunning.get() <= 2);
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void sequentialIfThreadsAreNotConfigured() throws Exception {
+        final OpRequestExecutor executor = newExecutor(0, 2);
+        final List<Callable<String>> tasks = new ArrayList<>();
+        tasks.add(new Callable<String>() {
+            @Override
+            public String call() {
+                return Thread.currentThread().getName();
+            }
+        });
+
+        final List<OpRequestExecutor.Result<String>> results = executor.invokeAll("https://op.example.com", tasks);
+
+        assertEquals(Thread.currentThread().getName(), results.get(0).getValue());
+    }
+
+    private static OpRequestExecutor newExecutor(int threads, int maxConcurrencyPerOp) {
+        return new OpRequestExecutor(configuration(c -> {
+            c.setOpRequestExecutorThreads(threads);
+            c.setOpRequestMaxConcurrencyPerOp(maxConcurrencyPerOp);
+        }));
+    }
+}
@@ -0,0 +1,88 @@
+package org.gluu.oxd.server.service;
+
+import com.google.inject.Inject;
+import io.dropwizard.configuration.ConfigurationException;
+import io.dropwizard.testing.ResourceHelpers;
+import org.gluu.oxd.server.TestUtils;
+import org.gluu.oxd.server.guice.GuiceModule;
+import org.gluu.oxd.server.model.OpSnapshot;
+import org.gluu.oxd.server.persistence.PersistenceService;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+@Guice(modules = GuiceModule.class)
+public class OpSnapshotPersistenceTest {
+
+    @Inject
+    ConfigurationService configurationService;
+    @Inject
+    PersistenceService persistenceService;
+
+    @BeforeClass
+    public void setUp() throws IOException, ConfigurationException {
+        configurationService.setConfiguration(TestUtils.parseConfiguration(ResourceHelpers.resourceFilePath("oxd-server-jenkins.yml")));
+        persistenceService.create();
+    }
+
+    @Test
+    public void putOverwritesSnapshotOfSameUrl() {
+        final String url = "https://op.example.com/.well-known/openid-configuration";
+
+        persistenceService.putOpSnapshot(new OpSnapshot(url, OpSnapshot.Type.DISCOVERY, "{\"issuer\":\"old\"}"));
+        persistenceService.putOpSnapshot(new OpSnapshot(url, OpSnapshot.Type.DISCOVERY, "{\"issuer\":\"new\"}"));
+
+        OpSnapshot found = null;
+        for (OpSnapshot snapshot : persistenceService.getOpSnapshots()) {
+            if (url.equals(snapshot.getUrl())) {
+                assertNull(found); // only one snapshot per url
+                found = snapshot;
+            }
+        }
+        assertNotNull(found);
+        assertEquals(OpSnapshot.Type.DISCOVERY, found.getType());
+        assertEquals("{\"issuer\":\"new\"}", found.getData());
+    }
+
+    /**
+     * Runs against storage of oxd-server-jenkins.yml (h2), redis url index is not covered here.
+     */
+    @Test
+    public void concurrentPutsOfDifferentUrlsAreAllListed() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                final String url = "https://op" + i + ".example.com/jwks";
+                futures.add(executor.submit(() -> persistenceService.putOpSnapshot(new OpSnapshot(url, OpSnapshot.Type.JWKS, "{\"keys\":[]}"))));
+            }
+            for (Future<Boolean> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final Set<String> urls = new HashSet<>();
+        for (OpSnapshot snapshot : persistenceService.getOpSnapshots()) {
+            urls.add(snapshot.getUrl());
+        }
+        for (int i = 0; i < 20; i++) {
+            assertTrue(urls.contains("https://op" + i + ".example.com/jwks"));
+        }
+    }
+}
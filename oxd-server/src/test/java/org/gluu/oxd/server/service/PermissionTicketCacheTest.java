@@ -0,0 +1,63 @@
+package org.gluu.oxd.server.service;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxd.common.response.RsCheckAccessResponse;
+import org.gluu.oxd.server.OxdServerConfiguration;
+import org.testng.annotations.Test;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+public class PermissionTicketCacheTest {
+
+    @Test
+    public void ticketIsReusedForSameResourceAndScopes() {
+        final PermissionTicketCache cache = newCache(60);
+
+        cache.put(PermissionTicketCache.key("oxdId", "resourceId", Lists.newArrayList("read", "write")), denied("ticket1"));
+
+        final RsCheckAccessResponse cached = cache.get(PermissionTicketCache.key("oxdId", "resourceId", Lists.newArrayList("write", "read")));
+        assertNotNull(cached);
+        assertEquals("denied", cached.getAccess());
+        assertEquals("ticket1", cached.getTicket());
+        assertEquals("UMA realm=\"rs\", ticket=\"ticket1\"", cached.getWwwAuthenticateHeader());
+
+        assertNull(cache.get(PermissionTicketCache.key("oxdId", "resourceId", Lists.newArrayList("read"))));
+        assertNull(cache.get(PermissionTicketCache.key("oxdId", "anotherResourceId", Lists.newArrayList("read", "write"))));
+        assertNull(cache.get(PermissionTicketCache.key("anotherOxdId", "resourceId", Lists.newArrayList("read", "write"))));
+    }
+
+    @Test
+    public void ticketIsEvictedOnceUsed() {
+        final PermissionTicketCache cache = newCache(60);
+        final String key = PermissionTicketCache.key("oxdId", "resourceId", Lists.newArrayList("read"));
+
+        cache.put(key, denied("ticket1"));
+        cache.invalidateTicket("ticket1");
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void disabledByDefault() {
+        final PermissionTicketCache cache = new PermissionTicketCache(new OxdServerConfiguration());
+        final String key = PermissionTicketCache.key("oxdId", "resourceId", Lists.newArrayList("read"));
+
+        cache.put(key, denied("ticket1"));
+
+        assertNull(cache.get(key));
+    }
+
+    private static PermissionTicketCache newCache(int ttlInSeconds) {
+        return new PermissionTicketCache(configuration(c -> c.setPermissionTicketCacheTtlInSeconds(ttlInSeconds)));
+    }
+
+    private static RsCheckAccessResponse denied(String ticket) {
+        final RsCheckAccessResponse response = new RsCheckAccessResponse("denied");
+        response.setTicket(ticket);
+        response.setWwwAuthenticateHeader("UMA realm=\"rs\", ticket=\"" + ticket + "\"");
+        return response;
+    }
+}
@@ -0,0 +1,89 @@
+package org.gluu.oxd.server.service;
+
+import org.gluu.oxauth.client.JwkClient;
+import org.gluu.oxauth.client.JwkResponse;
+import org.gluu.oxauth.model.jwk.JSONWebKeySet;
+import org.gluu.oxd.server.op.OpClientFactory;
+import org.gluu.oxd.server.persistence.PersistenceService;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+public class PublicOpKeyServiceTest {
+
+    private static final String JWKS_URI = "https://op.example.com/jwks";
+
+    // RSA key from RFC 7517, Appendix A.1
+    private static final String JWKS = "{\"keys\":[{\"kty\":\"RSA\",\"kid\":\"2011-04-29\",\"use\":\"sig\",\"alg\":\"RS256\",\"e\":\"AQAB\"," +
+            "\"n\":\"0vx7agoebGcQSuuPiLJXZptN9nndrQmbXEps2aiAFbWhM78LhWx4cbbfAAtVT86zwu1RK7aPFFxuhDR1L6tSoc_BJECPebWKRXjBZCiFV4n3oknjhMstn64tZ_2W-5JsGY4Hc5n9yBXArwl93lqt7_RN5w6Cf0h4QyQ5v-65YGjQR0_FDW2QvzqY368QQMicAtaSqzs8KJZgnYb9c7d0zgdAZHzu6qMQvRL5hajrn1n91CbOpbISD08qNLyrdkt-bFTWhAI4vMQFh6WeZu0fM4lFd2NcRwr3XPksINHaQ-G_xBniIqbw0Ls1jF44-csFCur-kEgU8awapJzKnqDKgw\"}]}";
+
+    @Test
+    public void unknownKidRefetchIsThrottled() throws Exception {
+        final JwkClient jwkClient = jwkClient();
+        final PublicOpKeyService service = newService(jwkClient, 60, 60);
+        try {
+            assertNotNull(service.getRSAPublicKey(JWKS_URI, "2011-04-29"));
+            verify(jwkClient, times(1)).exec();
+
+            // key set was just fetched, so random kids do not hit OP again
+            for (int i = 0; i < 10; i++) {
+                assertNull(service.getPublicKey(JWKS_URI, "unknown" + i));
+            }
+            verify(jwkClient, times(1)).exec();
+        } finally {
+            service.destroy();
+        }
+    }
+
+    @Test
+    public void kidUnknownAfterRefetchIsCachedNegatively() throws Exception {
+        final JwkClient jwkClient = jwkClient();
+        final PublicOpKeyService service = newService(jwkClient, 0, 60);
+        try {
+            assertNotNull(service.getRSAPublicKey(JWKS_URI, "2011-04-29"));
+            verify(jwkClient, times(1)).exec();
+
+            assertNull(service.getPublicKey(JWKS_URI, "unknown"));
+            verify(jwkClient, times(2)).exec(); // refetch is not throttled (interval is 0)
+
+            assertNull(service.getPublicKey(JWKS_URI, "unknown"));
+            verify(jwkClient, times(2)).exec(); // negative cache
+
+            assertNull(service.getPublicKey(JWKS_URI, "anotherUnknown"));
+            verify(jwkClient, times(3)).exec();
+
+            assertNull(service.refetchKey(JWKS_URI, "unknown")); // explicit refetch bypasses negative cache
+            verify(jwkClient, times(4)).exec();
+        } finally {
+            service.destroy();
+        }
+    }
+
+    private static PublicOpKeyService newService(JwkClient jwkClient, int refetchMinIntervalInSeconds, int negativeCacheInSeconds) {
+        final ConfigurationService configurationService = new ConfigurationService();
+        configurationService.setConfiguration(configuration(c -> {
+            c.setPublicOpKeyRefetchMinIntervalInSeconds(refetchMinIntervalInSeconds);
+            c.setPublicOpKeyNegativeCacheInSeconds(negativeCacheInSeconds);
+        }));
+        final OpClientFactory opClientFactory = mock(OpClientFactory.class);
+        when(opClientFactory.createJwkClient(JWKS_URI)).thenReturn(jwkClient);
+        return new PublicOpKeyService(configurationService, mock(HttpService.class), opClientFactory, mock(PersistenceService.class));
+    }
+
+    private static JwkClient jwkClient() throws Exception {
+        final JwkResponse response = new JwkResponse(200);
+        response.setEntity(JWKS);
+        response.setJwks(JSONWebKeySet.fromJSONObject(new JSONObject(JWKS)));
+
+        final JwkClient jwkClient = mock(JwkClient.class);
+        when(jwkClient.exec()).thenReturn(response);
+        return jwkClient;
+    }
+}
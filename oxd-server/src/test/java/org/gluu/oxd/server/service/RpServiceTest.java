@@ -9,16 +9,28 @@ import org.gluu.oxd.common.Jackson2;
 import org.gluu.oxd.server.HttpException;
 import org.gluu.oxd.server.TestUtils;
 import org.gluu.oxd.server.guice.GuiceModule;
+import org.gluu.oxd.server.model.RpToken;
 import org.gluu.oxd.server.persistence.PersistenceService;
 import org.testng.annotations.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -100,6 +112,114 @@ public class RpServiceTest {
         }
     }
 
+    @Test
+    public void rpsAreListedFromStorage() throws Exception {
+        Rp rp = newRp();
+
+        persistenceService.create(rp); // bypass cache
+
+        assertTrue(service.getRps().containsKey(rp.getOxdId()));
+        assertFalse(service.getCachedRps().containsKey(rp.getOxdId()));
+
+        service.remove(rp.getOxdId());
+        assertFalse(service.getRps().containsKey(rp.getOxdId()));
+    }
+
+    @Test
+    public void cachedRpsAreListedIfStorageCanNotListThem() throws IOException {
+        final PersistenceService storage = mock(PersistenceService.class); // e.g. redis without oxd_id index entry
+        when(storage.create(any(Rp.class))).thenReturn(true);
+        final RpService rpService = new RpService(validationService, storage, configurationService);
+        try {
+            final Rp rp = newRp();
+            rpService.create(rp);
+
+            assertTrue(rpService.getRps().containsKey(rp.getOxdId()));
+        } finally {
+            rpService.destroy();
+        }
+    }
+
+    @Test
+    public void rpIsFoundByClientId() throws Exception {
+        Rp rp = newRp();
+        rp.setClientId("Client-" + rp.getOxdId());
+
+        service.create(rp);
+        assertEquals(rp.getOxdId(), service.getRpByClientId(rp.getClientId().toLowerCase()).getOxdId());
+        assertEquals(rp.getOxdId(), persistenceService.getOxdIdByClientId(rp.getClientId().toLowerCase()));
+
+        final Rp updated = service.update(rp.getOxdId(), current -> {
+            current.setClientId("Updated-" + current.getOxdId());
+            return current;
+        });
+        assertNull(service.getRpByClientId(rp.getClientId()));
+        assertEquals(rp.getOxdId(), service.getRpByClientId(updated.getClientId()).getOxdId());
+
+        service.remove(rp.getOxdId());
+        assertNull(service.getRpByClientId(updated.getClientId()));
+        assertNull(persistenceService.getOxdIdByClientId(updated.getClientId().toLowerCase()));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void zeroCacheSizeIsRejected() {
+        final ConfigurationService zeroCacheConfiguration = new ConfigurationService();
+        zeroCacheConfiguration.setConfiguration(TestUtils.configuration(c -> c.setRpCacheMaxSize(0))); // updates could never be swapped in
+        new RpService(validationService, mock(PersistenceService.class), zeroCacheConfiguration);
+    }
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws Exception {
+        final Rp rp = newRp();
+        rp.setRpt("0");
+        service.create(rp);
+
+        final List<Future<Rp>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(EXECUTOR_SERVICE.submit(new Callable<Rp>() {
+                @Override
+                public Rp call() {
+                    return service.update(rp.getOxdId(), current -> {
+                        current.setRpt(Integer.toString(Integer.parseInt(current.getRpt()) + 1));
+                        return current;
+                    });
+                }
+            }));
+        }
+        for (Future<Rp> future : futures) {
+            future.get();
+        }
+
+        assertEquals("0", rp.getRpt()); // snapshot is not modified
+        assertEquals("100", service.getCachedRps().get(rp.getOxdId()).getRpt());
+        assertEquals("100", persistenceService.getRp(rp.getOxdId()).getRpt());
+
+        service.remove(rp.getOxdId());
+    }
+
+    @Test
+    public void tokensArePersistedSeparately() throws Exception {
+        final Rp rp = newRp();
+        service.create(rp);
+
+        service.updateTokens(rp.getOxdId(), current -> {
+            current.setPat("pat");
+            current.setPatCreatedAt(new Date());
+            current.setPatExpiresIn(3600);
+            return current;
+        });
+
+        assertNull(persistenceService.getRp(rp.getOxdId()).getPat());
+
+        final List<RpToken> tokens = persistenceService.getRpTokens(rp.getOxdId());
+        assertEquals(1, tokens.size());
+        assertEquals(RpToken.Type.PAT, tokens.get(0).getType());
+        assertEquals("pat", tokens.get(0).getToken());
+
+        service.remove(rp.getOxdId());
+        assertTrue(persistenceService.getRpTokens(rp.getOxdId()).isEmpty());
+    }
+
     @Test(invocationCount = 10, threadPoolSize = 10, enabled = false)
     public void stressTest() throws IOException {
 
@@ -0,0 +1,236 @@
+package org.gluu.oxd.server.service;
+
+import org.gluu.oxd.server.model.RpToken;
+import org.gluu.oxd.server.persistence.PersistenceService;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+public class RpWriteBehindQueueTest {
+
+    @Test
+    public void updatesOfSameRpAreCoalesced() {
+        final List<Write> writes = new CopyOnWriteArrayList<>();
+        final RpWriteBehindQueue queue = new RpWriteBehindQueue(recorder(writes, null), 60000, 100, 100, 60000);
+
+        queue.enqueue("oxdId", rp("name0"), rp("name1"), false);
+        queue.enqueue("oxdId", rp("name1"), rp("name2"), true);
+        queue.enqueue("oxdId", rp("name2"), rp("name3"), false);
+        queue.enqueue("anotherOxdId", null, rp("another"), true);
+
+        assertEquals(2, queue.size());
+        assertEquals("name3", queue.getPending("oxdId").getClientName());
+
+        queue.flush(false); // not due yet
+        assertTrue(writes.isEmpty());
+
+        queue.shutdown();
+        assertEquals(2, writes.size());
+        assertEquals(0, queue.size());
+
+        final Write write = writes.get(0).oxdId.equals("oxdId") ? writes.get(0) : writes.get(1);
+        assertEquals("name0", write.previous.getClientName());
+        assertEquals("name3", write.latest.getClientName());
+        assertTrue(write.full);
+    }
+
+    @Test
+    public void failedWriteStaysInQueue() {
+        final List<Write> writes = new CopyOnWriteArrayList<>();
+        final AtomicBoolean fail = new AtomicBoolean(true);
+        final RpWriteBehindQueue queue = new RpWriteBehindQueue(recorder(writes, fail), 60000, 100, 100, 60000);
+
+        queue.enqueue("oxdId", null, rp("name1"), true);
+        queue.flush(true);
+        assertEquals(1, queue.size());
+        assertTrue(writes.isEmpty());
+
+        fail.set(false);
+        queue.shutdown();
+        assertEquals(0, queue.size());
+        assertEquals(1, writes.size());
+    }
+
+    @Test
+    public void failedRpDoesNotBlockOtherRps() {
+        final List<Write> writes = new CopyOnWriteArrayList<>();
+        final RpWriteBehindQueue queue = new RpWriteBehindQueue(failing("failingOxdId", writes, new AtomicInteger()), 60000, 1, 100, 60000);
+
+        queue.enqueue("failingOxdId", null, rp("failing"), true);
+        for (int i = 0; i < 3; i++) {
+            queue.enqueue("oxdId" + i, null, rp("name" + i), true);
+        }
+
+        queue.flush(true);
+        assertEquals(3, writes.size());
+        assertEquals(1, queue.size());
+        assertEquals("failing", queue.getPending("failingOxdId").getClientName());
+
+        queue.shutdown();
+    }
+
+    @Test
+    public void failedWriteIsRetriedWithBackoff() throws InterruptedException {
+        final AtomicInteger attempts = new AtomicInteger();
+        final RpWriteBehindQueue queue = new RpWriteBehindQueue(failing("oxdId", new CopyOnWriteArrayList<>(), attempts), 10, 100, 100, 60000);
+
+        queue.enqueue("oxdId", null, rp("name"), true);
+        Thread.sleep(300);
+
+        // retries after 10, 20, 40, 80, 160 ms, without backoff it would be tried every 10 ms
+        assertTrue("attempts: " + attempts.get(), attempts.get() >= 2 && attempts.get() <= 8);
+        assertEquals(1, queue.size());
+
+        queue.discardAll();
+        queue.shutdown();
+    }
+
+    @Test
+    public void callerWritesItsChangeIfQueueIsFull() {
+        final List<Write> writes = new CopyOnWriteArrayList<>();
+        final RpWriteBehindQueue queue = new RpWriteBehindQueue(recorder(writes, null), 60000, 100, 2, 60000);
+
+        queue.enqueue("oxdId1", null, rp("name1"), true);
+        queue.enqueue("oxdId2", null, rp("name2"), true);
+        assertTrue(writes.isEmpty());
+
+        queue.enqueue("oxdId3", null, rp("name3"), true);
+        assertEquals(1, writes.size());
+        assertEquals("oxdId3", writes.get(0).oxdId);
+        assertEquals(2, queue.size());
+
+        queue.enqueue("oxdId1", null, rp("name1-updated"), true); // coalesced, queue does not grow
+        assertEquals(1, writes.size());
+        assertEquals(2, queue.size());
+
+        queue.shutdown();
+    }
+
+    @Test
+    public void discardedChangesAreNotWritten() {
+        final List<Write> writes = new CopyOnWriteArrayList<>();
+        final RpWriteBehindQueue queue = new RpWriteBehindQueue(recorder(writes, null), 60000, 100, 100, 60000);
+
+        queue.enqueue("oxdId", null, rp("name1"), true);
+        queue.discard("oxdId");
+
+        assertNull(queue.getPending("oxdId"));
+        queue.shutdown();
+        assertTrue(writes.isEmpty());
+    }
+
+    @Test
+    public void dueChangesAreFlushedByBackgroundThread() throws InterruptedException {
+        final List<Write> writes = new CopyOnWriteArrayList<>();
+        final RpWriteBehindQueue queue = new RpWriteBehindQueue(recorder(writes, null), 10, 1, 100, 60000);
+
+        for (int i = 0; i < 5; i++) {
+            queue.enqueue("oxdId" + i, null, rp("name" + i), true);
+        }
+
+        for (int i = 0; i < 100 && queue.size() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, queue.size());
+        assertEquals(5, writes.size());
+        assertNull(writes.get(0).previous);
+        queue.shutdown();
+    }
+
+    @Test
+    public void rpIsKeptInQueueIfStorageFailedToWriteIt() {
+        final PersistenceService persistenceService = mock(PersistenceService.class);
+        when(persistenceService.create(any(Rp.class))).thenReturn(true);
+        when(persistenceService.update(any(Rp.class))).thenReturn(false); // e.g. H2 failed, it does not throw
+        when(persistenceService.putRpToken(any(RpToken.class))).thenReturn(true);
+
+        final ConfigurationService configurationService = new ConfigurationService();
+        configurationService.setConfiguration(configuration(c -> {
+            c.setRpWriteBehindEnabled(true);
+            c.setRpWriteBehindDelayInMillis(60000);
+        }));
+        final RpService service = new RpService(null, persistenceService, configurationService);
+
+        try {
+            final Rp rp = rp("name");
+            rp.setOxdId("oxdId");
+            service.create(rp);
+            service.update("oxdId", current -> {
+                current.setClientName("updated");
+                return current;
+            });
+
+            service.flush();
+            verify(persistenceService, times(1)).update(any(Rp.class));
+            assertEquals("updated", service.getRps().get("oxdId").getClientName()); // still pending
+
+            when(persistenceService.update(any(Rp.class))).thenReturn(true);
+            service.flush();
+            verify(persistenceService, times(2)).update(any(Rp.class));
+
+            service.flush(); // nothing is pending anymore
+            verify(persistenceService, times(2)).update(any(Rp.class));
+        } finally {
+            service.destroy();
+        }
+    }
+
+    private static RpWriteBehindQueue.Writer recorder(final List<Write> writes, final AtomicBoolean fail) {
+        return new RpWriteBehindQueue.Writer() {
+            @Override
+            public void write(String oxdId, Rp previous, Rp latest, boolean full) {
+                if (fail != null && fail.get()) {
+                    throw new RuntimeException("Storage is not available.");
+                }
+                writes.add(new Write(oxdId, previous, latest, full));
+            }
+        };
+    }
+
+    private static RpWriteBehindQueue.Writer failing(final String failingOxdId, final List<Write> writes, final AtomicInteger attempts) {
+        return new RpWriteBehindQueue.Writer() {
+            @Override
+            public void write(String oxdId, Rp previous, Rp latest, boolean full) {
+                if (failingOxdId.equals(oxdId)) {
+                    attempts.incrementAndGet();
+                    throw new RuntimeException("Storage failed to write rp.");
+                }
+                writes.add(new Write(oxdId, previous, latest, full));
+            }
+        };
+    }
+
+    private static Rp rp(String clientName) {
+        final Rp rp = new Rp();
+        rp.setClientName(clientName);
+        return rp;
+    }
+
+    private static class Write {
+
+        private final String oxdId;
+        private final Rp previous;
+        private final Rp latest;
+        private final boolean full;
+
+        private Write(String oxdId, Rp previous, Rp latest, boolean full) {
+            this.oxdId = oxdId;
+            this.previous = previous;
+            this.latest = latest;
+            this.full = full;
+        }
+    }
+}
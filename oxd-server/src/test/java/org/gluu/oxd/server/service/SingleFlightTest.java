@@ -0,0 +1,97 @@
+package org.gluu.oxd.server.service;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.fail;
+
+public class SingleFlightTest {
+
+    @Test
+    public void concurrentCallsAreCoalesced() throws Exception {
+        final SingleFlight<String, Integer> flight = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+            futures.add(executor.submit(call(flight, calls, started, release)));
+            started.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(call(flight, calls, started, release)));
+            }
+            Thread.sleep(100); // let followers join in-flight call
+            release.countDown();
+
+            for (Future<Integer> future : futures) {
+                assertEquals(Integer.valueOf(1), future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+            assertFalse(flight.isInFlight("oxdId_pat"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void nextCallAfterCompletionIsExecuted() {
+        final SingleFlight<String, Integer> flight = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<Integer> callable = new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return calls.incrementAndGet();
+            }
+        };
+
+        assertEquals(Integer.valueOf(1), flight.execute("oxdId_pat", callable));
+        assertEquals(Integer.valueOf(2), flight.execute("oxdId_pat", callable));
+    }
+
+    @Test
+    public void exceptionIsPropagated() {
+        final SingleFlight<String, Integer> flight = new SingleFlight<>();
+        try {
+            flight.execute("oxdId_pat", new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    throw new IllegalStateException("failed");
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertFalse(flight.isInFlight("oxdId_pat"));
+    }
+
+    private static Callable<Integer> call(final SingleFlight<String, Integer> flight, final AtomicInteger calls,
+                                          final CountDownLatch started, final CountDownLatch release) {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return flight.execute("oxdId_pat", new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        started.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                        return calls.incrementAndGet();
+                    }
+                });
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package org.gluu.oxd.server.service;
+
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.gluu.oxd.server.TestUtils.configuration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+public class TokenRefreshServiceTest {
+
+    @Test
+    public void tokenIsRefreshedBeforeExpiration() {
+        final TokenRefreshService service = newService(60, 0);
+        final long now = System.currentTimeMillis();
+
+        final Date createdAt = new Date(now - TimeUnit.SECONDS.toMillis(3000));
+        assertFalse(service.shouldRefresh("oxdId", TokenRefreshService.TokenType.PAT, "pat", createdAt, 3600, now));
+        assertTrue(service.shouldRefresh("oxdId", TokenRefreshService.TokenType.PAT, "pat", createdAt, 3050, now));
+    }
+
+    @Test
+    public void notObtainedTokenIsNotRefreshed() {
+        final TokenRefreshService service = newService(60, 0);
+
+        assertFalse(service.shouldRefresh("oxdId", TokenRefreshService.TokenType.OAUTH, null, new Date(), 10, System.currentTimeMillis()));
+        assertFalse(service.shouldRefresh("oxdId", TokenRefreshService.TokenType.OAUTH, "token", null, 10, System.currentTimeMillis()));
+    }
+
+    @Test
+    public void shortLivedTokenIsRefreshedInTheMiddleOfLifetime() {
+        final TokenRefreshService service = newService(60, 0);
+        final long now = System.currentTimeMillis();
+
+        assertFalse(service.shouldRefresh("oxdId", TokenRefreshService.TokenType.PAT, "pat", new Date(now - TimeUnit.SECONDS.toMillis(10)), 30, now));
+        assertTrue(service.shouldRefresh("oxdId", TokenRefreshService.TokenType.PAT, "pat", new Date(now - TimeUnit.SECONDS.toMillis(16)), 30, now));
+    }
+
+    @Test
+    public void jitterIsStableAndBounded() {
+        final TokenRefreshService service = newService(60, 15);
+
+        for (int i = 0; i < 100; i++) {
+            final int jitter = service.jitterInSeconds("oxdId" + i, TokenRefreshService.TokenType.PAT);
+            assertTrue(jitter >= 0 && jitter <= 15);
+            assertEquals(jitter, service.jitterInSeconds("oxdId" + i, TokenRefreshService.TokenType.PAT));
+        }
+        assertEquals(0, newService(60, 0).jitterInSeconds("oxdId", TokenRefreshService.TokenType.PAT));
+    }
+
+    private static TokenRefreshService newService(int marginInSeconds, int jitterInSeconds) {
+        return new TokenRefreshService(configuration(c -> {
+            c.setTokenRefreshMarginInSeconds(marginInSeconds);
+            c.setTokenRefreshJitterInSeconds(jitterInSeconds);
+        }), null, null);
+    }
+}